@@ -2,21 +2,27 @@ package org.qbitspark.bishambatipsservice;
 
 import org.qbitspark.bishambatipsservice.authentication_service.entity.Roles;
 import org.qbitspark.bishambatipsservice.authentication_service.repo.RolesRepository;
+import org.qbitspark.bishambatipsservice.globesecurity.RoleRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @EnableAsync
+@EnableScheduling
 @SpringBootApplication
 public class BishambaTipsServiceApplication implements CommandLineRunner {
 
     @Autowired
     private RolesRepository roleRepository;
 
+    @Autowired
+    private RoleRegistry roleRegistry;
+
     @Bean
     public WebClient webClient(WebClient.Builder builder) {return builder.build();}
 
@@ -27,9 +33,12 @@ public class BishambaTipsServiceApplication implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
-        createRoleIfNotExists("ROLE_SUPER_ADMIN");
-        createRoleIfNotExists("ROLE_USER");
-        createRoleIfNotExists("ROLE_AGENT");
+        createRoleIfNotExists(RoleRegistry.ROLE_SUPER_ADMIN);
+        createRoleIfNotExists(RoleRegistry.ROLE_USER);
+        createRoleIfNotExists(RoleRegistry.ROLE_AGENT);
+
+        // Pick up any roles created above
+        roleRegistry.refresh();
     }
 
     private void createRoleIfNotExists(String roleName) {
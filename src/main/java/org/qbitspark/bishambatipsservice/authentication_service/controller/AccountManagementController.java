@@ -7,12 +7,17 @@ import org.qbitspark.bishambatipsservice.authentication_service.service.AccountS
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemNotFoundException;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.RandomExceptions;
 import org.qbitspark.bishambatipsservice.globeresponsebody.GlobeSuccessResponseBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -22,7 +27,11 @@ import java.util.stream.Collectors;
 @RequestMapping("api/v1/accounts")
 public class AccountManagementController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int EXPORT_BATCH_SIZE = 500;
+
     private final AccountService accountService;
+    private final ObjectMapper objectMapper;
 
 
     @PostMapping("/approve/{accountId}")
@@ -71,36 +80,52 @@ public class AccountManagementController {
 
     @GetMapping("/all")
     @PreAuthorize("hasRole('ROLE_SUPER_ADMIN')")
-    public ResponseEntity<GlobeSuccessResponseBuilder> getAllAccounts() {
-
-        List<AccountEntity> accounts = accountService.getAllAccounts();
+    public ResponseEntity<GlobeSuccessResponseBuilder> getAllAccounts(
+            AccountListFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) throws RandomExceptions {
 
-        List<AccountResponse> accountResponses = accounts.stream()
-                .map(this::mapToAccountResponse)
-                .collect(Collectors.toList());
+        AccountPageResponse page = accountService.getAccountsPage(filter, cursor, size);
 
         return ResponseEntity.ok(GlobeSuccessResponseBuilder.success(
                 "Accounts retrieved successfully",
-                accountResponses
+                page
         ));
     }
 
-
+    // Streams every matching account as one JSON object per line, a keyset page at a time
+    @GetMapping(value = "/all/export", produces = NDJSON)
+    @PreAuthorize("hasRole('ROLE_SUPER_ADMIN')")
+    public void exportAccounts(AccountListFilter filter, HttpServletResponse response) throws IOException, RandomExceptions {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        OutputStream out = response.getOutputStream();
+        String cursor = null;
+        do {
+            AccountPageResponse page = accountService.getAccountsPage(filter, cursor, EXPORT_BATCH_SIZE);
+            for (AccountResponse account : page.getAccounts()) {
+                out.write(objectMapper.writeValueAsBytes(account));
+                out.write('\n');
+            }
+            out.flush();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
 
     @GetMapping("/pending-approval")
     @PreAuthorize("hasRole('ROLE_SUPER_ADMIN')")
-    public ResponseEntity<GlobeSuccessResponseBuilder> getPendingApprovalAccounts() {
-
-        List<AccountEntity> accounts = accountService.getAllAccounts();
+    public ResponseEntity<GlobeSuccessResponseBuilder> getPendingApprovalAccounts(
+            AccountListFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) throws RandomExceptions {
 
-        List<AccountResponse> pendingAccounts = accounts.stream()
-                .filter(account -> !account.getIsApproved())
-                .map(this::mapToAccountResponse)
-                .collect(Collectors.toList());
+        filter.setApproved(false);
+        AccountPageResponse page = accountService.getAccountsPage(filter, cursor, size);
 
         return ResponseEntity.ok(GlobeSuccessResponseBuilder.success(
                 "Pending approval accounts retrieved successfully",
-                pendingAccounts
+                page
         ));
     }
 
@@ -2,24 +2,33 @@ package org.qbitspark.bishambatipsservice.authentication_service.controller;
 
 import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
 import org.qbitspark.bishambatipsservice.authentication_service.entity.Roles;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.TempTokenEntity;
 import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
 import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
 import org.qbitspark.bishambatipsservice.authentication_service.payloads.*;
 import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
 import org.qbitspark.bishambatipsservice.authentication_service.service.AccountService;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpDeliveryService;
+import org.qbitspark.bishambatipsservice.authentication_service.service.RefreshTokenService;
 import org.qbitspark.bishambatipsservice.authentication_service.service.TempTokenService;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.*;
 import org.qbitspark.bishambatipsservice.globeresponsebody.GlobeSuccessResponseBuilder;
+import org.qbitspark.bishambatipsservice.globesecurity.AccountTokenVersionCache;
 import org.qbitspark.bishambatipsservice.globesecurity.JWTProvider;
-import io.jsonwebtoken.Claims;
+import org.qbitspark.bishambatipsservice.globesecurity.JwtKeyRing;
+import org.qbitspark.bishambatipsservice.globesecurity.RoleRegistry;
+import org.qbitspark.bishambatipsservice.globesecurity.UserDetailsCache;
+import org.qbitspark.bishambatipsservice.globesecurity.ratelimit.AuthRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -27,7 +36,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor
@@ -37,9 +48,16 @@ public class GlobeAuthMngController {
 
     private final AccountService accountService;
     private final TempTokenService tempTokenService;
+    private final RefreshTokenService refreshTokenService;
     private final JWTProvider tokenProvider;
     private final AccountRepo accountRepo;
     private final PasswordEncoder passwordEncoder;
+    private final AccountTokenVersionCache tokenVersionCache;
+    private final UserDetailsCache userDetailsCache;
+    private final JwtKeyRing jwtKeyRing;
+    private final AuthRateLimiter authRateLimiter;
+    private final OtpDeliveryService otpDeliveryService;
+    private final RoleRegistry roleRegistry;
 
     @PostMapping("/register")
     public ResponseEntity<GlobeSuccessResponseBuilder> accountRegistration(
@@ -77,13 +95,13 @@ public class GlobeAuthMngController {
                 mapRolesToAuthorities(account.getRoles())
         );
 
-        String accessToken = tokenProvider.generateAccessToken(authentication);
-        String refreshToken = tokenProvider.generateRefreshToken(authentication);
+        String accessToken = tokenProvider.generateAccessToken(authentication, account.getId(), account.getTokenVersion());
+        String refreshToken = refreshTokenService.issueRefreshToken(account, authentication);
 
         // Create a login response with tokens and user data
         VerifiedAccountResponse verifiedAccountResponse = new VerifiedAccountResponse();
         verifiedAccountResponse.setAccessToken(accessToken);
-        verifiedAccountResponse.setRefreshToken(null);
+        verifiedAccountResponse.setRefreshToken(refreshToken);
         
         AccountResponse accountResponse = new AccountResponse();
         accountResponse.setFirstName(account.getFirstName());
@@ -115,14 +133,19 @@ public class GlobeAuthMngController {
 
     @PostMapping("/resend-otp")
     public ResponseEntity<GlobeSuccessResponseBuilder> resendOTP(
-            @Valid @RequestBody ResendOTPRequest request)
-            throws VerificationException, ItemNotFoundException, RandomExceptions {
+            @Valid @RequestBody ResendOTPRequest request, HttpServletRequest httpRequest)
+            throws VerificationException, ItemNotFoundException, RandomExceptions, TooManyRequestsException {
+
+        // Per-address limit first, so a flood of made-up tokens never reaches the token lookup
+        authRateLimiter.checkResendOtpFromIp(httpRequest.getRemoteAddr());
+
+        // Resolve user info from the stored temp token (one indexed lookup, for JWT and opaque tokens alike)
+        TempTokenEntity tempToken = tempTokenService.findActiveTempToken(request.getTempToken());
+        String userIdentifier = tempToken.getUserIdentifier();
+        TempTokenPurpose tokenPurpose = tempToken.getPurpose();
 
-        // Validate and get user info from temp token
-        Claims claims = tokenProvider.getTempTokenClaims(request.getTempToken());
-        String userIdentifier = claims.get("userIdentifier", String.class);
-        String purpose = claims.get("purpose", String.class);
-        TempTokenPurpose tokenPurpose = TempTokenPurpose.valueOf(purpose);
+        // Per-account limit, before the resend history queries and OTP generation
+        authRateLimiter.checkResendOtpFor(userIdentifier);
 
         // Check if resend is allowed
         if (!tempTokenService.canResendOTP(userIdentifier, tokenPurpose)) {
@@ -150,10 +173,27 @@ public class GlobeAuthMngController {
     }
 
 
+    // Lets the client poll whether the OTP for a temp token has gone out yet
+    @PostMapping("/otp-delivery-status")
+    public ResponseEntity<GlobeSuccessResponseBuilder> otpDeliveryStatus(
+            @Valid @RequestBody OtpDeliveryStatusRequest request)
+            throws ItemNotFoundException, RandomExceptions {
+
+        OtpDeliveryStatusResponse status = otpDeliveryService.getStatus(request.getTempToken());
+
+        return ResponseEntity.ok(GlobeSuccessResponseBuilder.success(
+                "OTP delivery status retrieved successfully",
+                status
+        ));
+    }
+
+
     @PostMapping("/psw-reset-otp")
     public ResponseEntity<GlobeSuccessResponseBuilder> requestPasswordResetOTP(
-            @Valid @RequestBody EmailPasswordResetRequest request)
-            throws RandomExceptions, ItemNotFoundException, VerificationException {
+            @Valid @RequestBody EmailPasswordResetRequest request, HttpServletRequest httpRequest)
+            throws RandomExceptions, ItemNotFoundException, VerificationException, TooManyRequestsException {
+
+        authRateLimiter.checkPasswordReset(request.getEmail(), httpRequest.getRemoteAddr());
 
         String tempToken = tempTokenService.sendPSWDResetOTP(request.getEmail());
 
@@ -180,8 +220,12 @@ public class GlobeAuthMngController {
         );
 
         account.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        account.bumpTokenVersion();
         account.setEditedAt(LocalDateTime.now());
         accountRepo.save(account);
+        tokenVersionCache.evict(account.getId());
+        userDetailsCache.evict(account.getUserName());
+        refreshTokenService.revokeAllForAccount(account);
 
         return ResponseEntity.ok(GlobeSuccessResponseBuilder.success(
                 "Password reset successfully",
@@ -192,13 +236,16 @@ public class GlobeAuthMngController {
 
 
     @PostMapping("/login")
-    public ResponseEntity<GlobeSuccessResponseBuilder> accountLogin(@Valid @RequestBody AccountLoginRequest accountLoginRequest) throws Exception {
+    public ResponseEntity<GlobeSuccessResponseBuilder> accountLogin(@Valid @RequestBody AccountLoginRequest accountLoginRequest,
+                                                                    HttpServletRequest httpRequest) throws Exception {
+
+        authRateLimiter.checkLogin(accountLoginRequest.getIdentifier(), httpRequest.getRemoteAddr());
 
         String tempToken = accountService.loginAccount(accountLoginRequest);
 
         RegistrationResponse registrationResponse = new RegistrationResponse(
                 tempToken,
-                "OTP has been sent to your " + getChannelName(VerificationChannels.EMAIL),
+                "OTP has been sent to your " + getChannelName(accountLoginRequest.getVerificationChannel()),
                 LocalDateTime.now().plusMinutes(10)
         );
 
@@ -221,6 +268,24 @@ public class GlobeAuthMngController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<GlobeSuccessResponseBuilder> logout(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest) throws TokenInvalidException {
+
+        refreshTokenService.revokeRefreshTokenFamily(refreshTokenRequest.getRefreshToken());
+
+        return ResponseEntity.ok(GlobeSuccessResponseBuilder.success(
+                "Logged out successfully"
+        ));
+    }
+
+    // Public signing keys in JWK Set format, served raw so standard JWT libraries and proxies can consume it
+    @GetMapping({"/jwks", "/.well-known/jwks.json"})
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(jwtKeyRing.jwks());
+    }
+
     private String getChannelName(VerificationChannels channel) {
         return switch (channel) {
             case EMAIL -> "email";
@@ -233,8 +298,6 @@ public class GlobeAuthMngController {
     }
 
     private Collection<? extends GrantedAuthority> mapRolesToAuthorities(Set<Roles> roles) {
-        return roles.stream()
-                .map(role -> new SimpleGrantedAuthority(role.getRoleName()))
-                .collect(Collectors.toList());
+        return roleRegistry.authoritiesFor(roles);
     }
 }
\ No newline at end of file
@@ -19,11 +19,25 @@ import java.util.UUID;
 @NoArgsConstructor
 @Getter
 @Setter
-@Table(name = "account_table", indexes = {
-        @Index(name = "idx_phone_number", columnList = "phoneNumber"),
-        @Index(name = "idx_email", columnList = "email")
+@NamedEntityGraph(name = AccountEntity.WITH_ROLES, attributeNodes = @NamedAttributeNode("roles"))
+@Table(name = "account_table", uniqueConstraints = {
+        @UniqueConstraint(name = AccountEntity.UK_EMAIL, columnNames = "email"),
+        @UniqueConstraint(name = AccountEntity.UK_PHONE_NUMBER, columnNames = "phoneNumber"),
+        @UniqueConstraint(name = AccountEntity.UK_USER_NAME, columnNames = "userName")
+}, indexes = {
+        // Keyset order of the admin account listing
+        @Index(name = "idx_account_created_id", columnList = "createdAt, id")
 })
 public class AccountEntity {
+
+    // Constraint names are matched when a duplicate insert is reported back to the caller
+    public static final String UK_EMAIL = "uk_account_email";
+    public static final String UK_PHONE_NUMBER = "uk_account_phone_number";
+    public static final String UK_USER_NAME = "uk_account_user_name";
+
+    // Loads roles in the same query, for the lookups that need authorities
+    public static final String WITH_ROLES = "AccountEntity.withRoles";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
@@ -65,11 +79,19 @@ public class AccountEntity {
 
     private String lockedReason;
 
-    @ManyToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // Bumped whenever roles or credentials change; access tokens minted with an older version are rejected
+    private Integer tokenVersion = 0;
+
+    // Lazy: only authentication and admin paths need roles, and they fetch them through WITH_ROLES.
+    // No cascade, roles are reference data managed by RoleRegistry
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "account_roles",
             joinColumns = @JoinColumn(name = "account_id", referencedColumnName = "id"),
             inverseJoinColumns = @JoinColumn(name = "role_id", referencedColumnName = "roleId"))
     private Set<Roles> roles;
 
+    public void bumpTokenVersion() {
+        this.tokenVersion = (tokenVersion == null ? 0 : tokenVersion) + 1;
+    }
 
 }
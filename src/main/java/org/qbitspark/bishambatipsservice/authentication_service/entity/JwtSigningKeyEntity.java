@@ -0,0 +1,43 @@
+package org.qbitspark.bishambatipsservice.authentication_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Asymmetric JWT signing key shared by every node. The private key is stored AES-GCM
+ * encrypted (see JwtKeyRing); the public key is plain X.509 and is what the JWKS endpoint serves.
+ */
+@Entity
+@Table(name = "jwt_signing_key_table", indexes = {
+        @Index(name = "idx_jwt_signing_key_activates_at", columnList = "activates_at")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class JwtSigningKeyEntity {
+
+    @Id
+    @Column(name = "kid", length = 36)
+    private String kid;
+
+    @Column(name = "algorithm", nullable = false, length = 16)
+    private String algorithm;
+
+    @Column(name = "public_key", nullable = false)
+    private byte[] publicKey;  // X.509 SubjectPublicKeyInfo
+
+    @Column(name = "private_key", nullable = false)
+    private byte[] privateKey;  // PKCS#8, AES-GCM encrypted with the kid as associated data
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "activates_at", nullable = false)
+    private LocalDateTime activatesAt;  // Published before this, used for signing from this point
+}
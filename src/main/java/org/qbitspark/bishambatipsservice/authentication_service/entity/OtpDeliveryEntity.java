@@ -0,0 +1,83 @@
+package org.qbitspark.bishambatipsservice.authentication_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.OtpDeliveryStatus;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox row for an OTP message. Written in the same transaction as its temp token and
+ * sent afterwards by OtpDeliveryWorker.
+ */
+@Entity
+@Table(name = "otp_delivery_table", indexes = {
+        @Index(name = "idx_otp_delivery_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_otp_delivery_token_hash", columnList = "token_hash"),
+        @Index(name = "idx_otp_delivery_created_at", columnList = "created_at")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class OtpDeliveryEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "token_hash", nullable = false, length = 32)
+    private byte[] tokenHash;  // Hash of the temp token the OTP belongs to, used for status lookups
+
+    @Column(name = "purpose")
+    @Enumerated(EnumType.STRING)
+    private TempTokenPurpose purpose;  // Picks the message wording; null on rows queued before it was recorded
+
+    @Column(name = "channel", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private VerificationChannels channel;  // Requested channel, may be composite (EMAIL_AND_SMS, ALL_CHANNELS)
+
+    @Column(name = "delivered_via")
+    @Enumerated(EnumType.STRING)
+    private VerificationChannels deliveredVia;  // Concrete channel that delivered first
+
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "phone_number")
+    private String phoneNumber;
+
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "sealed_otp", nullable = false)
+    private byte[] sealedOtp;  // AES-GCM encrypted OTP, emptied once the delivery reaches SENT or FAILED
+
+    @Transient
+    private String otpCode;  // Decrypted in memory for the senders once the delivery is claimed
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OtpDeliveryStatus status = OtpDeliveryStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;  // Also the lease expiry while SENDING
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,67 @@
+package org.qbitspark.bishambatipsservice.authentication_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "refresh_token_table", indexes = {
+        @Index(name = "idx_refresh_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_account", columnList = "account_id"),
+        @Index(name = "idx_refresh_revoked_at", columnList = "revoked_at"),
+        @Index(name = "idx_refresh_used_at", columnList = "used_at"),
+        @Index(name = "idx_refresh_expires_at", columnList = "expires_at")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class RefreshTokenEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "jti", unique = true, nullable = false)
+    private String jti;  // JWT id of the refresh token
+
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;  // Shared by every token rotated from the same login
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private AccountEntity account;
+
+    @Column(name = "issued_at", nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;  // Set once the token has been exchanged
+
+    @Column(name = "replaced_by_jti")
+    private String replacedByJti;
+
+    // Only set by logout, password reset or reuse detection; a normal rotation leaves it false
+    @Column(name = "revoked", nullable = false)
+    private Boolean revoked = false;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    // Helper methods
+    public boolean isUsed() {
+        return usedAt != null;
+    }
+
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(expiresAt);
+    }
+}
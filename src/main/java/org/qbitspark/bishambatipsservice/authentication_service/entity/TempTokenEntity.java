@@ -14,7 +14,8 @@ import java.util.UUID;
 @Table(name = "temp_token_table", indexes = {
         @Index(name = "idx_token_hash", columnList = "tokenHash"),
         @Index(name = "idx_expires_at", columnList = "expiresAt"),
-        @Index(name = "idx_account_purpose", columnList = "account_id, purpose")
+        @Index(name = "idx_account_purpose_created", columnList = "account_id, purpose, created_at"),
+        @Index(name = "idx_user_identifier_purpose_created", columnList = "user_identifier, purpose, created_at")
 })
 @AllArgsConstructor
 @NoArgsConstructor
@@ -26,8 +27,10 @@ public class TempTokenEntity {
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
 
-    @Column(name = "token_hash", unique = true, nullable = false)
-    private String tokenHash;  // Hash of the actual JWT token for lookup
+    // Indexed, not unique: a partitioned table cannot enforce uniqueness without created_at.
+    // Temp tokens carry a random jti, so hashes do not collide
+    @Column(name = "token_hash", nullable = false, length = 32)
+    private byte[] tokenHash;  // Raw SHA-256 of the actual JWT token for lookup
 
     @Column(name = "purpose", nullable = false)
     @Enumerated(EnumType.STRING)
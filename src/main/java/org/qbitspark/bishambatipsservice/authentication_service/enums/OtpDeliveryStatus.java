@@ -0,0 +1,8 @@
+package org.qbitspark.bishambatipsservice.authentication_service.enums;
+
+public enum OtpDeliveryStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
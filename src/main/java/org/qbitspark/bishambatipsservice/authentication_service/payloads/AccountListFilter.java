@@ -0,0 +1,22 @@
+package org.qbitspark.bishambatipsservice.authentication_service.payloads;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for account listings, bound from query parameters. Unset filters match everything.
+ */
+@Data
+public class AccountListFilter {
+    private Boolean approved;
+    private Boolean verified;
+    private String role;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;  // inclusive
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;  // exclusive
+}
@@ -1,7 +1,9 @@
 package org.qbitspark.bishambatipsservice.authentication_service.payloads;
 
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
 
 @Data
 public class AccountLoginRequest {
@@ -9,4 +11,7 @@ public class AccountLoginRequest {
     private String identifier;
     @NotEmpty(message = "Password should not be empty")
     private String password;
+    // Optional; login codes go by SMS unless the client asks for another channel
+    @NotNull(message = "Verification channel should not be null")
+    private VerificationChannels verificationChannel = VerificationChannels.SMS;
 }
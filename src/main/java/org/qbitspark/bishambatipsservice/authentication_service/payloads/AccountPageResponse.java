@@ -0,0 +1,16 @@
+package org.qbitspark.bishambatipsservice.authentication_service.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountPageResponse {
+    private List<AccountResponse> accounts;
+    private String nextCursor;  // Pass back as ?cursor= for the next page; null on the last page
+    private boolean hasMore;
+}
@@ -0,0 +1,34 @@
+package org.qbitspark.bishambatipsservice.authentication_service.payloads;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Column projection of account_table for listings; roles are fetched separately per page.
+ */
+public record AccountSummary(UUID id, String userName, String firstName, String lastName, String middleName,
+                             String email, String phoneNumber, Boolean isApproved, String approvedBy,
+                             Boolean isVerified, Boolean isEmailVerified, Boolean isPhoneVerified,
+                             LocalDateTime createdAt, LocalDateTime editedAt) {
+
+    public AccountResponse toResponse(Set<String> roles) {
+        return AccountResponse.builder()
+                .id(id)
+                .userName(userName)
+                .firstName(firstName)
+                .lastName(lastName)
+                .middleName(middleName)
+                .email(email)
+                .phoneNumber(phoneNumber)
+                .isApproved(isApproved)
+                .approvedBy(approvedBy)
+                .isVerified(isVerified)
+                .isEmailVerified(isEmailVerified)
+                .isPhoneVerified(isPhoneVerified)
+                .createdAt(createdAt)
+                .editedAt(editedAt)
+                .roles(roles)
+                .build();
+    }
+}
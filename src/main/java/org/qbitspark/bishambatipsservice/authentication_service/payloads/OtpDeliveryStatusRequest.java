@@ -0,0 +1,11 @@
+package org.qbitspark.bishambatipsservice.authentication_service.payloads;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class OtpDeliveryStatusRequest {
+
+    @NotBlank(message = "Temp token is mandatory")
+    private String tempToken;
+}
@@ -0,0 +1,18 @@
+package org.qbitspark.bishambatipsservice.authentication_service.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.OtpDeliveryStatus;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class OtpDeliveryStatusResponse {
+    private OtpDeliveryStatus status;
+    private VerificationChannels channel;
+    private VerificationChannels deliveredVia;
+    private int attempts;
+    private LocalDateTime sentAt;
+}
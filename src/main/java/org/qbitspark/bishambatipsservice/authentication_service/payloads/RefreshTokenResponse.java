@@ -5,4 +5,5 @@ import lombok.Data;
 @Data
 public class RefreshTokenResponse {
     String newToken;
+    String refreshToken;
 }
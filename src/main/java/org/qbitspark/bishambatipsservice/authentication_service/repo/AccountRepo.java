@@ -2,19 +2,65 @@ package org.qbitspark.bishambatipsservice.authentication_service.repo;
 
 
 import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.payloads.AccountSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface AccountRepo extends JpaRepository<AccountEntity, UUID> {
     Optional<AccountEntity> findAccountEntitiesByEmailOrPhoneNumberOrUserName(String email, String phoneNumber, String userName);
+    @EntityGraph(AccountEntity.WITH_ROLES)
     Optional<AccountEntity> findAccountEntitiesByUserName(String userName);
     Optional<AccountEntity> findByEmail(String email);
+    @EntityGraph(AccountEntity.WITH_ROLES)
     Optional<AccountEntity> findByUserName(String username);
-    Boolean existsByPhoneNumberOrEmailOrUserName(String phoneNumber, String email, String userName);
+
+    @EntityGraph(AccountEntity.WITH_ROLES)
+    Optional<AccountEntity> findWithRolesById(UUID id);
 
     Optional<AccountEntity> findByEmailOrPhoneNumberOrUserName(String email, String phoneNumber, String userName);
     Boolean existsByUserName(String userName);
 
+    // Keyset page, newest first. Unset filters and the cursor (null on the first page) are skipped
+    @Query("""
+            select new org.qbitspark.bishambatipsservice.authentication_service.payloads.AccountSummary(
+                a.id, a.userName, a.firstName, a.lastName, a.middleName, a.email, a.phoneNumber,
+                a.isApproved, a.approvedBy, a.isVerified, a.isEmailVerified, a.isPhoneVerified,
+                a.createdAt, a.editedAt)
+            from AccountEntity a
+            where (:approved is null or a.isApproved = :approved)
+              and (:verified is null or a.isVerified = :verified)
+              and (:createdFrom is null or a.createdAt >= :createdFrom)
+              and (:createdTo is null or a.createdAt < :createdTo)
+              and (:role is null or exists (select 1 from a.roles r where r.roleName = :role))
+              and (:cursorCreatedAt is null
+                   or a.createdAt < :cursorCreatedAt
+                   or (a.createdAt = :cursorCreatedAt and a.id < :cursorId))
+            order by a.createdAt desc, a.id desc
+            """)
+    List<AccountSummary> findAccountPage(@Param("approved") Boolean approved,
+                                         @Param("verified") Boolean verified,
+                                         @Param("role") String role,
+                                         @Param("createdFrom") LocalDateTime createdFrom,
+                                         @Param("createdTo") LocalDateTime createdTo,
+                                         @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                         @Param("cursorId") UUID cursorId,
+                                         Pageable pageable);
+
+    // Role names for one page of accounts, as (accountId, roleName) pairs
+    @Query("select a.id, r.roleName from AccountEntity a join a.roles r where a.id in :ids")
+    List<Object[]> findRoleNamesByAccountIds(@Param("ids") Collection<UUID> ids);
+
+    // Current token version of an unlocked account; empty when the account is gone or locked
+    @Query("select coalesce(a.tokenVersion, 0) from AccountEntity a where a.id = :id and a.locked = false")
+    Optional<Integer> findActiveTokenVersionById(@Param("id") UUID id);
+
 }
@@ -0,0 +1,17 @@
+package org.qbitspark.bishambatipsservice.authentication_service.repo;
+
+import org.qbitspark.bishambatipsservice.authentication_service.entity.JwtSigningKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKeyEntity, String> {
+
+    List<JwtSigningKeyEntity> findByAlgorithmOrderByActivatesAtDesc(String algorithm);
+
+    // Held until the surrounding transaction ends; serializes rotation across nodes
+    @Query(value = "select pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("key") long key);
+}
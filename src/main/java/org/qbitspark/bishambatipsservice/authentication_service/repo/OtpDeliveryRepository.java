@@ -0,0 +1,30 @@
+package org.qbitspark.bishambatipsservice.authentication_service.repo;
+
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface OtpDeliveryRepository extends JpaRepository<OtpDeliveryEntity, UUID> {
+
+    Optional<OtpDeliveryEntity> findFirstByTokenHashOrderByCreatedAtDesc(byte[] tokenHash);
+
+    // Due deliveries, including SENDING rows whose lease ran out (worker died mid-send).
+    // SKIP LOCKED lets several nodes claim batches concurrently without waiting on each other
+    @Query(value = "SELECT * FROM otp_delivery_table " +
+            "WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+            "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OtpDeliveryEntity> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from OtpDeliveryEntity d where d.createdAt < :createdAt and d.status in " +
+            "(org.qbitspark.bishambatipsservice.authentication_service.enums.OtpDeliveryStatus.SENT, " +
+            "org.qbitspark.bishambatipsservice.authentication_service.enums.OtpDeliveryStatus.FAILED)")
+    int deleteFinishedBefore(@Param("createdAt") LocalDateTime createdAt);
+}
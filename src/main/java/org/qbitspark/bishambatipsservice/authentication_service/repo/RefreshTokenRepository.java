@@ -0,0 +1,60 @@
+package org.qbitspark.bishambatipsservice.authentication_service.repo;
+
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.RefreshTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, UUID> {
+
+    Optional<RefreshTokenEntity> findByJti(String jti);
+
+    @Query("select r.familyId from RefreshTokenEntity r where r.jti = :jti")
+    Optional<UUID> findFamilyIdByJti(@Param("jti") String jti);
+
+    /**
+     * Exchanges a token atomically: only one caller can move a live row to used, so concurrent
+     * refreshes with the same token cannot both succeed. 0 rows means unknown, used or revoked.
+     */
+    @Modifying
+    @Query("""
+            update RefreshTokenEntity r set r.usedAt = :now, r.replacedByJti = :replacedByJti
+            where r.jti = :jti and r.usedAt is null and r.revoked = false""")
+    int markUsed(@Param("jti") String jti, @Param("replacedByJti") String replacedByJti, @Param("now") LocalDateTime now);
+
+    @Query("select r.jti from RefreshTokenEntity r where r.familyId = :familyId and r.revoked = false")
+    List<String> findActiveJtisByFamilyId(@Param("familyId") UUID familyId);
+
+    @Query("select r.jti from RefreshTokenEntity r where r.account = :account and r.revoked = false")
+    List<String> findActiveJtisByAccount(@Param("account") AccountEntity account);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update RefreshTokenEntity r set r.revoked = true, r.revokedAt = :now where r.familyId = :familyId and r.revoked = false")
+    int revokeFamily(@Param("familyId") UUID familyId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update RefreshTokenEntity r set r.revoked = true, r.revokedAt = :now where r.account = :account and r.revoked = false")
+    int revokeAllForAccount(@Param("account") AccountEntity account, @Param("now") LocalDateTime now);
+
+    // Used or revoked tokens that can still be presented; used to build the in-memory denylist
+    @Query("select r.jti from RefreshTokenEntity r where (r.revoked = true or r.usedAt is not null) and r.expiresAt > :now")
+    List<String> findUnusableUnexpiredJtis(@Param("now") LocalDateTime now);
+
+    @Query("select r.jti from RefreshTokenEntity r where r.revokedAt > :since or r.usedAt > :since")
+    List<String> findJtisUnusableSince(@Param("since") LocalDateTime since);
+
+    // Expired rows are rejected by the JWT expiry check alone, so nothing needs them any more
+    @Modifying
+    @Query(value = """
+            delete from refresh_token_table where id in (
+                select id from refresh_token_table where expires_at < :now limit :limit
+            )""", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
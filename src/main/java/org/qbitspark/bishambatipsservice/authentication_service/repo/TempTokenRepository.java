@@ -4,6 +4,9 @@ import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEn
 import org.qbitspark.bishambatipsservice.authentication_service.entity.TempTokenEntity;
 import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -13,7 +16,7 @@ import java.util.UUID;
 public interface TempTokenRepository extends JpaRepository<TempTokenEntity, UUID> {
 
 
-    Optional<TempTokenEntity> findByTokenHash(String tokenHash);
+    Optional<TempTokenEntity> findByTokenHash(byte[] tokenHash);
 
 
     List<TempTokenEntity> findByAccountAndPurpose(AccountEntity account, TempTokenPurpose purpose);
@@ -22,10 +25,26 @@ public interface TempTokenRepository extends JpaRepository<TempTokenEntity, UUID
     List<TempTokenEntity> findByUserIdentifierAndPurpose(String userIdentifier, TempTokenPurpose purpose);
 
 
-    List<TempTokenEntity> findByAccountAndPurposeAndIsUsed(AccountEntity account, TempTokenPurpose purpose, Boolean isUsed);
+    @Modifying(flushAutomatically = true)
+    @Query("update TempTokenEntity t set t.attempts = t.attempts + 1 where t.tokenHash = :tokenHash")
+    int incrementAttempts(@Param("tokenHash") byte[] tokenHash);
 
 
-    List<TempTokenEntity> findByUserIdentifierAndPurposeAndIsUsed(String userIdentifier, TempTokenPurpose purpose, Boolean isUsed);
+    @Modifying(flushAutomatically = true)
+    @Query("update TempTokenEntity t set t.isUsed = true where t.tokenHash = :tokenHash and t.isUsed = false")
+    int markUsed(@Param("tokenHash") byte[] tokenHash);
+
+
+    @Modifying(flushAutomatically = true)
+    @Query("update TempTokenEntity t set t.isUsed = true " +
+            "where t.account = :account and t.purpose = :purpose and t.isUsed = false")
+    int markUnusedAsUsedByAccount(@Param("account") AccountEntity account, @Param("purpose") TempTokenPurpose purpose);
+
+
+    @Modifying(flushAutomatically = true)
+    @Query("update TempTokenEntity t set t.isUsed = true " +
+            "where t.userIdentifier = :userIdentifier and t.purpose = :purpose and t.isUsed = false")
+    int markUnusedAsUsedByUserIdentifier(@Param("userIdentifier") String userIdentifier, @Param("purpose") TempTokenPurpose purpose);
 
 
     List<TempTokenEntity> findByAccountAndPurposeAndIsUsedAndExpiresAtAfter(
@@ -44,22 +63,26 @@ public interface TempTokenRepository extends JpaRepository<TempTokenEntity, UUID
     );
 
 
-    List<TempTokenEntity> findByAccountAndPurposeAndCreatedAtAfter(
+    // Rate-limit checks: aggregated in the database and served by the (.., purpose, created_at) indexes
+    long countByAccountAndPurposeAndCreatedAtAfter(
             AccountEntity account,
             TempTokenPurpose purpose,
             LocalDateTime createdAt
     );
 
 
-    List<TempTokenEntity> findByUserIdentifierAndPurposeAndCreatedAtAfter(
+    long countByUserIdentifierAndPurposeAndCreatedAtAfter(
             String userIdentifier,
             TempTokenPurpose purpose,
             LocalDateTime createdAt
     );
 
 
-    List<TempTokenEntity> findByExpiresAtBefore(LocalDateTime expiresAt);
-
-
-    List<TempTokenEntity> findByIsUsedAndCreatedAtBefore(Boolean isUsed, LocalDateTime createdAt);
+    @Query("select max(t.createdAt) from TempTokenEntity t " +
+            "where t.userIdentifier = :userIdentifier and t.purpose = :purpose and t.createdAt > :createdAt")
+    Optional<LocalDateTime> findLatestCreatedAt(
+            @Param("userIdentifier") String userIdentifier,
+            @Param("purpose") TempTokenPurpose purpose,
+            @Param("createdAt") LocalDateTime createdAt
+    );
 }
\ No newline at end of file
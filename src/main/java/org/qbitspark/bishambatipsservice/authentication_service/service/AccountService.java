@@ -15,7 +15,10 @@ public interface AccountService {
 
     RefreshTokenResponse refreshToken(String refreshToken) throws TokenInvalidException;
 
-    List<AccountEntity> getAllAccounts();
+    /**
+     * One keyset page of accounts, newest first. {@code cursor} is the previous page's nextCursor, or null.
+     */
+    AccountPageResponse getAccountsPage(AccountListFilter filter, String cursor, int size) throws RandomExceptions;
 
     AccountEntity getAccountById(UUID accountId) throws ItemNotFoundException, RandomExceptions;
 
@@ -0,0 +1,20 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service;
+
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+
+import java.time.Duration;
+
+/**
+ * Sends an OTP through one concrete channel. Register an implementation as a bean to make
+ * the channel available to OtpChannelDispatcher.
+ */
+public interface OtpChannelSender {
+
+    VerificationChannels channel();
+
+    // How long the dispatcher waits for this channel before treating it as failed
+    Duration timeout();
+
+    void send(OtpDeliveryEntity delivery) throws Exception;
+}
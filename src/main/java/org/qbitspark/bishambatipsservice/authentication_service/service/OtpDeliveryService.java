@@ -0,0 +1,27 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service;
+
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.payloads.OtpDeliveryStatusResponse;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemNotFoundException;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.RandomExceptions;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface OtpDeliveryService {
+
+    void enqueue(String tempToken, TempTokenPurpose purpose, VerificationChannels channel, AccountEntity account, String otpCode) throws RandomExceptions;
+
+    OtpDeliveryStatusResponse getStatus(String tempToken) throws ItemNotFoundException, RandomExceptions;
+
+    List<OtpDeliveryEntity> claimDueDeliveries(int limit);
+
+    void markSent(UUID deliveryId, VerificationChannels deliveredVia);
+
+    void markFailed(UUID deliveryId, String error);
+
+    int deleteFinishedDeliveries();
+}
@@ -0,0 +1,30 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service;
+
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.TokenInvalidException;
+import org.springframework.security.core.Authentication;
+
+import java.util.UUID;
+
+public interface RefreshTokenService {
+
+    String issueRefreshToken(AccountEntity account, Authentication authentication);
+
+    /**
+     * Marks the presented token as used. Must run in the same transaction as
+     * {@link #rotateRefreshToken}, so a failure in between leaves the token usable.
+     */
+    ConsumedRefreshToken consumeRefreshToken(String refreshToken) throws TokenInvalidException;
+
+    String rotateRefreshToken(ConsumedRefreshToken consumed, AccountEntity account, Authentication authentication);
+
+    void revokeRefreshTokenFamily(String refreshToken) throws TokenInvalidException;
+
+    void revokeAllForAccount(AccountEntity account);
+
+    /**
+     * A token that was just exchanged; {@code nextJti} is already recorded as its replacement.
+     */
+    record ConsumedRefreshToken(String jti, UUID familyId, String userName, String nextJti) {
+    }
+}
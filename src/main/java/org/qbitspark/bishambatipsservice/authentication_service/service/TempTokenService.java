@@ -1,6 +1,7 @@
 package org.qbitspark.bishambatipsservice.authentication_service.service;
 
 import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.TempTokenEntity;
 import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemNotFoundException;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.RandomExceptions;
@@ -16,6 +17,12 @@ public interface TempTokenService {
     String resendOTP(String tempToken) throws VerificationException, ItemNotFoundException, RandomExceptions;
 
 
+    /**
+     * Resolves an unused, unexpired temp token without consuming it. Works for both JWT and opaque tokens.
+     */
+    TempTokenEntity findActiveTempToken(String tempToken) throws VerificationException;
+
+
     AccountEntity validateTempTokenAndOTP(String tempToken, String otpCode) throws VerificationException, ItemNotFoundException, RandomExceptions;
 
 
@@ -34,4 +41,6 @@ public interface TempTokenService {
     boolean canResendOTP(String userIdentifier, TempTokenPurpose purpose);
 
     boolean canResendByEmail(String email, TempTokenPurpose purpose);
+
+    byte[] hashToken(String tempToken);
 }
\ No newline at end of file
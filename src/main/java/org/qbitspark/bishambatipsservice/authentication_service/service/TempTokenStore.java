@@ -0,0 +1,42 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service;
+
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.TempTokenEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Storage for temp tokens (OTP sessions), selected with app.temp-token.store:
+ * "jpa" (default, temp_token_table) or "memory" (single-node deployments, no database writes).
+ * <p>
+ * Entities returned by {@link #findByTokenHash} are working copies in the memory store. Attempts and
+ * the used flag are changed with {@link #incrementAttempts} and {@link #markUsed}, which update the
+ * stored token in one step, so concurrent verifications of the same token cannot lose an update.
+ */
+public interface TempTokenStore {
+
+    TempTokenEntity save(TempTokenEntity tempToken);
+
+    Optional<TempTokenEntity> findByTokenHash(byte[] tokenHash);
+
+    void incrementAttempts(byte[] tokenHash);
+
+    /**
+     * Marks the token used; false when it was already used (or is gone), so only one caller wins.
+     */
+    boolean markUsed(byte[] tokenHash);
+
+    int markUnusedAsUsedByAccount(AccountEntity account, TempTokenPurpose purpose);
+
+    int markUnusedAsUsedByUserIdentifier(String userIdentifier, TempTokenPurpose purpose);
+
+    long countByAccountCreatedAfter(AccountEntity account, TempTokenPurpose purpose, LocalDateTime createdAfter);
+
+    long countByUserIdentifierCreatedAfter(String userIdentifier, TempTokenPurpose purpose, LocalDateTime createdAfter);
+
+    Optional<LocalDateTime> findLatestCreatedAt(String userIdentifier, TempTokenPurpose purpose, LocalDateTime createdAfter);
+
+    void purgeExpired();
+}
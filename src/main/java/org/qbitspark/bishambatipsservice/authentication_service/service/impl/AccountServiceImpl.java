@@ -6,25 +6,33 @@ import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenP
 import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
 import org.qbitspark.bishambatipsservice.authentication_service.payloads.*;
 import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
-import org.qbitspark.bishambatipsservice.authentication_service.repo.RolesRepository;
 import org.qbitspark.bishambatipsservice.authentication_service.service.AccountService;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpDeliveryService;
+import org.qbitspark.bishambatipsservice.authentication_service.service.RefreshTokenService;
 import org.qbitspark.bishambatipsservice.authentication_service.service.TempTokenService;
 import org.qbitspark.bishambatipsservice.authentication_service.utils.UsernameGenerationUtils;
-import org.qbitspark.bishambatipsservice.emails_service.GlobeMailService;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.*;
+import org.qbitspark.bishambatipsservice.globesecurity.AccountTokenVersionCache;
+import org.qbitspark.bishambatipsservice.globesecurity.AuthenticatedAccountProvider;
 import org.qbitspark.bishambatipsservice.globesecurity.JWTProvider;
+import org.qbitspark.bishambatipsservice.globesecurity.RoleRegistry;
+import org.qbitspark.bishambatipsservice.globesecurity.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
-import org.qbitspark.bishambatipsservice.sms_service.GlobeSmsService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.regex.Pattern;
@@ -35,28 +43,60 @@ import java.util.stream.Collectors;
 public class AccountServiceImpl implements AccountService {
 
     private final AccountRepo accountRepo;
-    private final RolesRepository rolesRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JWTProvider tokenProvider;
     private final UsernameGenerationUtils usernameGenerationUtils;
     private final TempTokenService tempTokenService;
-    private final GlobeMailService globeMailService;
-    private final GlobeSmsService globeSmsService;
-
+    private final RefreshTokenService refreshTokenService;
+    private final OtpDeliveryService otpDeliveryService;
+    private final AccountTokenVersionCache tokenVersionCache;
+    private final UserDetailsCache userDetailsCache;
+    private final AuthenticatedAccountProvider authenticatedAccountProvider;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // A generated username lost to a concurrent registration is replaced this many times at most
+    private static final int USERNAME_ATTEMPTS = 3;
+
+    /**
+     * Each attempt runs in its own transaction: once an insert has failed, neither the database
+     * transaction nor the persistence context can be used again, so a username clash is retried
+     * from scratch with a fresh name. The password is hashed once, outside the attempts, so a
+     * retry does not pay for bcrypt again and no transaction is held open while it runs.
+     */
     @Override
     public String registerAccount(CreateAccountRequest createAccountRequest) throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String passwordHash = passwordEncoder.encode(createAccountRequest.getPassword());
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    try {
+                        return registerOnce(createAccountRequest, passwordHash);
+                    } catch (Exception e) {
+                        throw new RegistrationAttemptException(e);
+                    }
+                });
+            } catch (RegistrationAttemptException e) {
+                if (!(e.getCause() instanceof UsernameTakenException)) {
+                    throw (Exception) e.getCause();
+                }
+                if (attempt == USERNAME_ATTEMPTS) {
+                    throw new ItemReadyExistException("Could not generate a unique username, please try again");
+                }
+            }
+        }
+    }
 
-        String generatedUsername = usernameGenerationUtils.generateUniqueUsernameFromEmail(createAccountRequest.getEmail());
+    private String registerOnce(CreateAccountRequest createAccountRequest, String passwordHash) throws Exception {
 
-        // Check the existence of a user by email, phone, or generated username
-        if (accountRepo.existsByPhoneNumberOrEmailOrUserName(
-                createAccountRequest.getPhoneNumber(),
-                createAccountRequest.getEmail(),
-                generatedUsername)) {
-            throw new ItemReadyExistException("User with provided credentials already exist, please login");
-        }
+        String generatedUsername = usernameGenerationUtils.generateUsernameFromEmail(createAccountRequest.getEmail());
 
+        // No existence pre-check: the unique constraints on account_table decide, see saveNewAccount
         AccountEntity account = new AccountEntity();
         account.setUserName(generatedUsername);
         account.setCreatedAt(LocalDateTime.now());
@@ -69,15 +109,15 @@ public class AccountServiceImpl implements AccountService {
         account.setMiddleName(createAccountRequest.getMiddleName());
         account.setEmail(createAccountRequest.getEmail());
         account.setPhoneNumber(createAccountRequest.getPhoneNumber());
-        account.setPassword(passwordEncoder.encode(createAccountRequest.getPassword()));
+        account.setPassword(passwordHash);
 
         Set<Roles> roles = new HashSet<>();
-        Roles userRoles = rolesRepository.findByRoleName("ROLE_USER")
-                .orElseThrow(() -> new ItemNotFoundException("Default role not found"));
-        roles.add(userRoles);
+        roles.add(roleRegistry.findByName(RoleRegistry.ROLE_USER)
+                .map(roleRegistry::getReference)
+                .orElseThrow(() -> new ItemNotFoundException("Default role not found")));
         account.setRoles(roles);
 
-        AccountEntity savedAccount = accountRepo.save(account);
+        AccountEntity savedAccount = saveNewAccount(account);
 
         String otpCode = generateOtpCode();
 
@@ -89,11 +129,12 @@ public class AccountServiceImpl implements AccountService {
         );
 
 
-        return sendOTPViaChannel(VerificationChannels.SMS, savedAccount, otpCode, tempToken);
+        return sendOTPViaChannel(createAccountRequest.getVerificationChannel(), TempTokenPurpose.REGISTRATION_OTP, savedAccount, otpCode, tempToken);
     }
 
 
     @Override
+    @Transactional
     public String loginAccount(AccountLoginRequest accountLoginRequest) throws Exception {
 
         String identifier = accountLoginRequest.getIdentifier();
@@ -101,6 +142,13 @@ public class AccountServiceImpl implements AccountService {
 
         AccountEntity userAccount = accountRepo.findByEmailOrPhoneNumberOrUserName(identifier, identifier, identifier).orElseThrow(() -> new ItemNotFoundException("User not found"));
 
+        // Check the password before issuing an OTP, so a wrong password costs one hash check only.
+        // A hash stored at an old cost is rehashed here (CustomUserDetailsService.updatePassword)
+        authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(
+                        userAccount.getUserName(),
+                        password));
+
         String otpCode = generateOtpCode();
 
         String tempToken = tempTokenService.createTempToken(
@@ -110,32 +158,23 @@ public class AccountServiceImpl implements AccountService {
                 otpCode
         );
 
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        userAccount.getUserName(),
-                        password));
-
         if (!userAccount.getIsVerified()) {
             userAccount.setIsVerified(true);
         }
 
-        return sendOTPViaChannel(VerificationChannels.SMS, userAccount, otpCode, tempToken);
+        return sendOTPViaChannel(accountLoginRequest.getVerificationChannel(), TempTokenPurpose.LOGIN_OTP, userAccount, otpCode, tempToken);
 
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public RefreshTokenResponse refreshToken(String refreshToken) throws TokenInvalidException {
         try {
-            // First, validate that this is specifically a refresh token
-            if (!tokenProvider.validToken(refreshToken, "REFRESH")) {
-                throw new TokenInvalidException("Invalid token");
-            }
-
-            // Get username from a token
-            String userName = tokenProvider.getUserName(refreshToken);
+            // Consume and rotate commit together, so a failure in between leaves the presented token usable
+            RefreshTokenService.ConsumedRefreshToken consumed = refreshTokenService.consumeRefreshToken(refreshToken);
 
             // Retrieve user from database
-            AccountEntity user = accountRepo.findByUserName(userName)
+            AccountEntity user = accountRepo.findByUserName(consumed.userName())
                     .orElseThrow(() -> new ItemNotFoundException("User not found"));
 
             // Create authentication with user authorities
@@ -145,17 +184,19 @@ public class AccountServiceImpl implements AccountService {
                     mapRolesToAuthorities(user.getRoles())
             );
 
-            // Generate only a new access token, not a new refresh token
-            String newAccessToken = tokenProvider.generateAccessToken(authentication);
+            // Rotate on use: new access token plus a new refresh token in the same family
+            String newAccessToken = tokenProvider.generateAccessToken(authentication, user.getId(), user.getTokenVersion());
+            String newRefreshToken = refreshTokenService.rotateRefreshToken(consumed, user, authentication);
 
             // Build response
             RefreshTokenResponse refreshTokenResponse = new RefreshTokenResponse();
             refreshTokenResponse.setNewToken(newAccessToken);
+            refreshTokenResponse.setRefreshToken(newRefreshToken);
 
             return refreshTokenResponse;
 
-        } catch (TokenExpiredException e) {
-            throw new TokenInvalidException("Refresh token has expired. Please login again");
+        } catch (TokenInvalidException e) {
+            throw e;
         } catch (Exception e) {
             throw new TokenInvalidException("Failed to refresh token: " + e.getMessage());
         } finally {
@@ -165,20 +206,65 @@ public class AccountServiceImpl implements AccountService {
     }
 
     @Override
-    public List<AccountEntity> getAllAccounts() {
-        return accountRepo.findAll();
+    @Transactional(readOnly = true)
+    public AccountPageResponse getAccountsPage(AccountListFilter filter, String cursor, int size) throws RandomExceptions {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        LocalDateTime cursorCreatedAt = null;
+        UUID cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                cursorCreatedAt = LocalDateTime.parse(parts[0]);
+                cursorId = UUID.fromString(parts[1]);
+            } catch (RuntimeException e) {
+                throw new RandomExceptions("Invalid cursor");
+            }
+        }
+
+        // One extra row tells whether another page follows
+        List<AccountSummary> rows = accountRepo.findAccountPage(
+                filter.getApproved(), filter.getVerified(), filter.getRole(),
+                filter.getCreatedFrom(), filter.getCreatedTo(),
+                cursorCreatedAt, cursorId, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        Map<UUID, Set<String>> rolesByAccount = new HashMap<>();
+        if (!rows.isEmpty()) {
+            List<UUID> ids = rows.stream().map(AccountSummary::id).toList();
+            for (Object[] pair : accountRepo.findRoleNamesByAccountIds(ids)) {
+                rolesByAccount.computeIfAbsent((UUID) pair[0], id -> new HashSet<>()).add((String) pair[1]);
+            }
+        }
+
+        List<AccountResponse> accounts = rows.stream()
+                .map(row -> row.toResponse(rolesByAccount.getOrDefault(row.id(), Set.of())))
+                .toList();
+
+        String nextCursor = null;
+        if (hasMore) {
+            AccountSummary last = rows.get(rows.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.createdAt() + "|" + last.id()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return new AccountPageResponse(accounts, nextCursor, hasMore);
     }
 
     @Override
     public AccountEntity getAccountById(UUID accountId) throws ItemNotFoundException, RandomExceptions {
-        AccountEntity account = accountRepo.findById(accountId)
+        AccountEntity account = accountRepo.findWithRolesById(accountId)
                 .orElseThrow(() -> new ItemNotFoundException("Account not found"));
 
-        AccountEntity currentUser = getAuthenticatedAccount();
+        AccountEntity currentUser = authenticatedAccountProvider.getAccount();
 
         // Check if user is SUPER_ADMIN or owns the account
         boolean isSuperAdmin = currentUser.getRoles().stream()
-                .anyMatch(role -> "ROLE_SUPER_ADMIN".equals(role.getRoleName()));
+                .anyMatch(role -> RoleRegistry.ROLE_SUPER_ADMIN.equals(role.getRoleName()));
 
         boolean isOwner = account.getUserName().equals(currentUser.getUserName());
 
@@ -191,43 +277,53 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public AccountEntity approveUser(UUID accountId) throws ItemNotFoundException {
-        AccountEntity account = accountRepo.findById(accountId)
+        AccountEntity account = accountRepo.findWithRolesById(accountId)
                 .orElseThrow(() -> new ItemNotFoundException("Account not found"));
 
-        AccountEntity approver = getAuthenticatedAccount();
+        AccountEntity approver = authenticatedAccountProvider.getAccount();
 
         account.setIsVerified(true);
         account.setApprovedBy(approver.getUserName());
         account.setEditedAt(LocalDateTime.now());
 
-        return accountRepo.save(account);
+        AccountEntity savedAccount = accountRepo.save(account);
+        userDetailsCache.evict(savedAccount.getUserName());
+
+        return savedAccount;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public AccountEntity assignRole(UUID accountId, UUID roleId) throws ItemNotFoundException {
-        AccountEntity account = accountRepo.findById(accountId)
+        AccountEntity account = accountRepo.findWithRolesById(accountId)
                 .orElseThrow(() -> new ItemNotFoundException("Account not found"));
 
-        Roles role = rolesRepository.findById(roleId)
+        Roles role = roleRegistry.findById(roleId)
+                .map(roleRegistry::getReference)
                 .orElseThrow(() -> new ItemNotFoundException("Role not found"));
 
         account.getRoles().clear();
         account.getRoles().add(role);
+        account.bumpTokenVersion();
         account.setEditedAt(LocalDateTime.now());
 
-        return accountRepo.save(account);
+        AccountEntity savedAccount = accountRepo.save(account);
+        tokenVersionCache.evict(savedAccount.getId());
+        userDetailsCache.evict(savedAccount.getUserName());
+
+        return savedAccount;
     }
 
     @Override
     public AccountEntity updateUserDetails(UUID accountId, UpdateUserRequest request) throws ItemNotFoundException, RandomExceptions {
-        AccountEntity account = accountRepo.findById(accountId)
+        AccountEntity account = accountRepo.findWithRolesById(accountId)
                 .orElseThrow(() -> new ItemNotFoundException("Account not found"));
 
-        AccountEntity currentUser = getAuthenticatedAccount();
+        AccountEntity currentUser = authenticatedAccountProvider.getAccount();
 
         // Check if user is SUPER_ADMIN or owns the account
         boolean isSuperAdmin = currentUser.getRoles().stream()
-                .anyMatch(role -> "ROLE_SUPER_ADMIN".equals(role.getRoleName()));
+                .anyMatch(role -> RoleRegistry.ROLE_SUPER_ADMIN.equals(role.getRoleName()));
 
         boolean isOwner = account.getUserName().equals(currentUser.getUserName());
 
@@ -285,22 +381,50 @@ public class AccountServiceImpl implements AccountService {
 
         account.setEditedAt(LocalDateTime.now());
 
-        return accountRepo.save(account);
+        AccountEntity savedAccount = accountRepo.save(account);
+        userDetailsCache.evict(savedAccount.getUserName());
+
+        return savedAccount;
     }
 
     @Override
     public List<RoleResponse> getAllRoles() {
-        List<Roles> roles = rolesRepository.findAll();
+        List<Roles> roles = roleRegistry.getAll();
 
         return roles.stream()
                 .map(role -> new RoleResponse(role.getRoleId(), role.getRoleName()))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Inserts the account immediately so a clash with an existing (or concurrently registered)
+     * account surfaces here, and reports which field clashed. A username clash is not the user's
+     * doing and is retried by registerAccount.
+     */
+    private AccountEntity saveNewAccount(AccountEntity account) throws ItemReadyExistException, UsernameTakenException {
+        try {
+            return accountRepo.saveAndFlush(account);
+        } catch (DataIntegrityViolationException e) {
+            String constraintName = e.getCause() instanceof ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    ? violation.getConstraintName().toLowerCase(Locale.ROOT)
+                    : "";
+
+            if (constraintName.contains(AccountEntity.UK_EMAIL)) {
+                throw new ItemReadyExistException("An account with this email already exists, please login");
+            }
+            if (constraintName.contains(AccountEntity.UK_PHONE_NUMBER)) {
+                throw new ItemReadyExistException("An account with this phone number already exists, please login");
+            }
+            if (constraintName.contains(AccountEntity.UK_USER_NAME)) {
+                throw new UsernameTakenException();
+            }
+            throw e;
+        }
+    }
+
     private Collection<? extends GrantedAuthority> mapRolesToAuthorities(Set<Roles> roles) {
-        return roles.stream()
-                .map(role -> new SimpleGrantedAuthority(role.getRoleName()))
-                .collect(Collectors.toList());
+        return roleRegistry.authoritiesFor(roles);
     }
 
     private String generateOtpCode() {
@@ -309,49 +433,24 @@ public class AccountServiceImpl implements AccountService {
         return String.valueOf(otp);
     }
 
-    private String sendOTPViaChannel(VerificationChannels verificationChannels, AccountEntity savedAccount, String otpCode, String tempToken) throws Exception {
-        //Check a selected verification channel
-        switch (verificationChannels) {
-            case EMAIL -> //Send the OTP via email
-                    globeMailService.sendOTPEmail(savedAccount.getEmail(), otpCode, savedAccount.getFirstName(), "Welcome to BuildWise Books Support!", "Please use the following OTP to complete your Authentication: ");
-            case SMS -> {
-                globeSmsService.sendOTPSms(savedAccount.getPhoneNumber(), otpCode);
-            }
-            case EMAIL_AND_SMS -> {
-                System.out.println("Email and SMS verification is not implemented yet.");
-            }
-
-            case SMS_AND_WHATSAPP -> {
-                System.out.println("SMS and WhatsApp verification is not implemented yet.");
-            }
-            case WHATSAPP -> {
-                System.out.println("WhatsApp verification is not implemented yet.");
-            }
-            case VOICE_CALL -> {
-                System.out.println("Voice call verification is not implemented yet.");
-            }
-            case PUSH_NOTIFICATION -> {
-                System.out.println("Push notification verification is not implemented yet.");
-            }
-            case ALL_CHANNELS -> {
-                System.out.println("All channels verification is not implemented yet.");
-            }
-
-            default ->
-                    globeMailService.sendOTPEmail(savedAccount.getEmail(), otpCode, savedAccount.getFirstName(), "Welcome to BuildWise Books Support!", "Please use the following OTP to complete your registration: ");
-
-        }
+    private String sendOTPViaChannel(VerificationChannels verificationChannels, TempTokenPurpose purpose, AccountEntity savedAccount, String otpCode, String tempToken) throws RandomExceptions {
+        // Queued in the caller's transaction and sent by OtpDeliveryWorker, so the response does not wait
+        // on a gateway. Composite channels (EMAIL_AND_SMS, SMS_AND_WHATSAPP, ALL_CHANNELS) fan out in
+        // parallel and the first channel to deliver wins. A channel with no sender is rejected by enqueue
+        otpDeliveryService.enqueue(tempToken, purpose, verificationChannels, savedAccount, otpCode);
 
         return tempToken;
     }
 
-    private AccountEntity getAuthenticatedAccount() throws ItemNotFoundException {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String userName = userDetails.getUsername();
+    private static class UsernameTakenException extends Exception {
+    }
+
+    // Carries a checked exception out of the transaction callback, rolling the attempt back
+    private static class RegistrationAttemptException extends RuntimeException {
 
-        return accountRepo.findByUserName(userName)
-                .orElseThrow(() -> new ItemNotFoundException("User not found"));
+        RegistrationAttemptException(Exception cause) {
+            super(cause);
+        }
     }
 
 }
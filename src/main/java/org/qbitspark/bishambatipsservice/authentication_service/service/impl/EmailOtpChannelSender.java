@@ -0,0 +1,47 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpChannelSender;
+import org.qbitspark.bishambatipsservice.emails_service.GlobeMailService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@RequiredArgsConstructor
+public class EmailOtpChannelSender implements OtpChannelSender {
+
+    private final GlobeMailService globeMailService;
+
+    @Value("${app.otp-delivery.email-timeout-ms:10000}")
+    private long timeoutMillis;
+
+    @Override
+    public VerificationChannels channel() {
+        return VerificationChannels.EMAIL;
+    }
+
+    @Override
+    public Duration timeout() {
+        return Duration.ofMillis(timeoutMillis);
+    }
+
+    @Override
+    public void send(OtpDeliveryEntity delivery) throws Exception {
+        String firstName = delivery.getFirstName() != null ? delivery.getFirstName() : "User";
+        TempTokenPurpose purpose = delivery.getPurpose() != null ? delivery.getPurpose() : TempTokenPurpose.LOGIN_OTP;
+
+        switch (purpose) {
+            case REGISTRATION_OTP -> globeMailService.sendOTPEmail(delivery.getEmail(), delivery.getOtpCode(), firstName,
+                    "Welcome to BuildWise Books Support!", "Please use the following OTP to complete your registration: ");
+            case PASSWORD_RESET_OTP -> globeMailService.sendOTPEmail(delivery.getEmail(), delivery.getOtpCode(), firstName,
+                    "Password Reset Request", "Please use the following OTP to reset your password: ");
+            default -> globeMailService.sendOTPEmail(delivery.getEmail(), delivery.getOtpCode(), firstName,
+                    "Login Verification", "Please use the following OTP to complete your login: ");
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.TempTokenEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+import org.qbitspark.bishambatipsservice.authentication_service.service.TempTokenStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded in-memory temp token store for single-node deployments: an OTP round-trip does no
+ * database writes. Tokens are held as immutable snapshots keyed by token hash, with secondary
+ * indexes by account and user identifier for the rate-limit and invalidation queries.
+ * <p>
+ * Entries expire after the retention window, which must cover the longest look-back used by
+ * the rate limits (resend history is read back one hour). Tokens do not survive a restart.
+ * Tuned under app.temp-token.memory.*, not under the app.temp-token.store selector, so the
+ * settings can sit next to it in YAML.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.temp-token.store", havingValue = "memory")
+public class InMemoryTempTokenStore implements TempTokenStore {
+
+    private final AccountRepo accountRepo;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.temp-token.memory.max-size:100000}")
+    private long maxSize;
+
+    @Value("${app.temp-token.memory.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private Cache<String, StoredToken> tokens;
+    private final Map<String, Set<String>> tokensByOwner = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void initStore() {
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .removalListener((String tokenHash, StoredToken token, RemovalCause cause) -> {
+                    if (token != null && cause.wasEvicted()) {
+                        unindex(tokenHash, token);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokens, "tempTokens");
+    }
+
+    @Override
+    public TempTokenEntity save(TempTokenEntity tempToken) {
+        if (tempToken.getId() == null) {
+            tempToken.setId(UUID.randomUUID());
+        }
+
+        StoredToken token = StoredToken.from(tempToken);
+        String hashKey = hashKey(tempToken.getTokenHash());
+        tokens.put(hashKey, token);
+        for (String owner : token.ownerKeys()) {
+            tokensByOwner.computeIfAbsent(owner, key -> ConcurrentHashMap.newKeySet()).add(hashKey);
+        }
+        return tempToken;
+    }
+
+    @Override
+    public Optional<TempTokenEntity> findByTokenHash(byte[] tokenHash) {
+        StoredToken token = tokens.getIfPresent(hashKey(tokenHash));
+        if (token == null) {
+            return Optional.empty();
+        }
+
+        // Always hand out the current account, never the snapshot taken when the token was issued
+        AccountEntity account = token.accountId() == null ? null : accountRepo.findWithRolesById(token.accountId()).orElse(null);
+        return Optional.of(token.toEntity(account));
+    }
+
+    @Override
+    public void incrementAttempts(byte[] tokenHash) {
+        tokens.asMap().computeIfPresent(hashKey(tokenHash), (hash, token) -> token.withAttempts(token.attempts() + 1));
+    }
+
+    @Override
+    public boolean markUsed(byte[] tokenHash) {
+        AtomicBoolean marked = new AtomicBoolean();
+        tokens.asMap().computeIfPresent(hashKey(tokenHash), (hash, token) -> {
+            if (token.used()) {
+                return token;
+            }
+            marked.set(true);
+            return token.markedUsed();
+        });
+        return marked.get();
+    }
+
+    @Override
+    public int markUnusedAsUsedByAccount(AccountEntity account, TempTokenPurpose purpose) {
+        return markUnusedAsUsed(accountKey(account.getId(), purpose));
+    }
+
+    @Override
+    public int markUnusedAsUsedByUserIdentifier(String userIdentifier, TempTokenPurpose purpose) {
+        return markUnusedAsUsed(userKey(userIdentifier, purpose));
+    }
+
+    @Override
+    public long countByAccountCreatedAfter(AccountEntity account, TempTokenPurpose purpose, LocalDateTime createdAfter) {
+        return countCreatedAfter(accountKey(account.getId(), purpose), createdAfter);
+    }
+
+    @Override
+    public long countByUserIdentifierCreatedAfter(String userIdentifier, TempTokenPurpose purpose, LocalDateTime createdAfter) {
+        return countCreatedAfter(userKey(userIdentifier, purpose), createdAfter);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findLatestCreatedAt(String userIdentifier, TempTokenPurpose purpose, LocalDateTime createdAfter) {
+        LocalDateTime latest = null;
+        for (String tokenHash : tokensByOwner.getOrDefault(userKey(userIdentifier, purpose), Set.of())) {
+            StoredToken token = tokens.getIfPresent(tokenHash);
+            if (token != null && token.createdAt().isAfter(createdAfter)
+                    && (latest == null || token.createdAt().isAfter(latest))) {
+                latest = token.createdAt();
+            }
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    @Override
+    public void purgeExpired() {
+        tokens.cleanUp();
+    }
+
+    private int markUnusedAsUsed(String ownerKey) {
+        AtomicInteger updated = new AtomicInteger();
+        for (String tokenHash : tokensByOwner.getOrDefault(ownerKey, Set.of())) {
+            tokens.asMap().computeIfPresent(tokenHash, (hash, token) -> {
+                if (token.used()) {
+                    return token;
+                }
+                updated.incrementAndGet();
+                return token.markedUsed();
+            });
+        }
+        return updated.get();
+    }
+
+    private long countCreatedAfter(String ownerKey, LocalDateTime createdAfter) {
+        long count = 0;
+        for (String tokenHash : tokensByOwner.getOrDefault(ownerKey, Set.of())) {
+            StoredToken token = tokens.getIfPresent(tokenHash);
+            if (token != null && token.createdAt().isAfter(createdAfter)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void unindex(String tokenHash, StoredToken token) {
+        for (String owner : token.ownerKeys()) {
+            tokensByOwner.computeIfPresent(owner, (key, hashes) -> {
+                hashes.remove(tokenHash);
+                return hashes.isEmpty() ? null : hashes;
+            });
+        }
+    }
+
+    // byte[] has identity equality, so entries are keyed by the hex form of the hash
+    private static String hashKey(byte[] tokenHash) {
+        return HexFormat.of().formatHex(tokenHash);
+    }
+
+    private static String accountKey(UUID accountId, TempTokenPurpose purpose) {
+        return purpose + ":account:" + accountId;
+    }
+
+    private static String userKey(String userIdentifier, TempTokenPurpose purpose) {
+        return purpose + ":user:" + userIdentifier;
+    }
+
+    private record StoredToken(UUID id, byte[] tokenHash, TempTokenPurpose purpose, String identifier,
+                               String userIdentifier, String otpHash, LocalDateTime createdAt,
+                               LocalDateTime expiresAt, boolean used, int attempts, int maxAttempts,
+                               UUID accountId) {
+
+        static StoredToken from(TempTokenEntity entity) {
+            return new StoredToken(entity.getId(), entity.getTokenHash(), entity.getPurpose(),
+                    entity.getIdentifier(), entity.getUserIdentifier(), entity.getOtpHash(),
+                    entity.getCreatedAt(), entity.getExpiresAt(), Boolean.TRUE.equals(entity.getIsUsed()),
+                    entity.getAttempts(), entity.getMaxAttempts(),
+                    entity.getAccount() == null ? null : entity.getAccount().getId());
+        }
+
+        TempTokenEntity toEntity(AccountEntity account) {
+            return new TempTokenEntity(id, tokenHash, purpose, identifier, userIdentifier, otpHash,
+                    createdAt, expiresAt, used, attempts, maxAttempts, account);
+        }
+
+        StoredToken markedUsed() {
+            return new StoredToken(id, tokenHash, purpose, identifier, userIdentifier, otpHash,
+                    createdAt, expiresAt, true, attempts, maxAttempts, accountId);
+        }
+
+        StoredToken withAttempts(int newAttempts) {
+            return new StoredToken(id, tokenHash, purpose, identifier, userIdentifier, otpHash,
+                    createdAt, expiresAt, used, newAttempts, maxAttempts, accountId);
+        }
+
+        Set<String> ownerKeys() {
+            return accountId == null
+                    ? Set.of(userKey(userIdentifier, purpose))
+                    : Set.of(userKey(userIdentifier, purpose), accountKey(accountId, purpose));
+        }
+    }
+}
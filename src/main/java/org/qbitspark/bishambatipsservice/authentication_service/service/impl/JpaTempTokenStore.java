@@ -0,0 +1,72 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.TempTokenEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.TempTokenRepository;
+import org.qbitspark.bishambatipsservice.authentication_service.service.TempTokenStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.temp-token.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaTempTokenStore implements TempTokenStore {
+
+    private final TempTokenRepository tempTokenRepository;
+    private final TempTokenPurgeJob tempTokenPurgeJob;
+
+    @Override
+    public TempTokenEntity save(TempTokenEntity tempToken) {
+        return tempTokenRepository.save(tempToken);
+    }
+
+    @Override
+    public Optional<TempTokenEntity> findByTokenHash(byte[] tokenHash) {
+        return tempTokenRepository.findByTokenHash(tokenHash);
+    }
+
+    @Override
+    public void incrementAttempts(byte[] tokenHash) {
+        tempTokenRepository.incrementAttempts(tokenHash);
+    }
+
+    @Override
+    public boolean markUsed(byte[] tokenHash) {
+        return tempTokenRepository.markUsed(tokenHash) > 0;
+    }
+
+    @Override
+    public int markUnusedAsUsedByAccount(AccountEntity account, TempTokenPurpose purpose) {
+        return tempTokenRepository.markUnusedAsUsedByAccount(account, purpose);
+    }
+
+    @Override
+    public int markUnusedAsUsedByUserIdentifier(String userIdentifier, TempTokenPurpose purpose) {
+        return tempTokenRepository.markUnusedAsUsedByUserIdentifier(userIdentifier, purpose);
+    }
+
+    @Override
+    public long countByAccountCreatedAfter(AccountEntity account, TempTokenPurpose purpose, LocalDateTime createdAfter) {
+        return tempTokenRepository.countByAccountAndPurposeAndCreatedAtAfter(account, purpose, createdAfter);
+    }
+
+    @Override
+    public long countByUserIdentifierCreatedAfter(String userIdentifier, TempTokenPurpose purpose, LocalDateTime createdAfter) {
+        return tempTokenRepository.countByUserIdentifierAndPurposeAndCreatedAtAfter(userIdentifier, purpose, createdAfter);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findLatestCreatedAt(String userIdentifier, TempTokenPurpose purpose, LocalDateTime createdAfter) {
+        return tempTokenRepository.findLatestCreatedAt(userIdentifier, purpose, createdAfter);
+    }
+
+    @Override
+    public void purgeExpired() {
+        tempTokenPurgeJob.purge();
+    }
+}
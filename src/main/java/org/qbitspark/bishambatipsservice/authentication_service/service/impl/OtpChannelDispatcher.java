@@ -0,0 +1,198 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpChannelSender;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.RandomExceptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends an OTP through every concrete channel behind a (possibly composite) VerificationChannels
+ * value at the same time. The first channel to succeed wins and is reported back; each channel is
+ * bounded by its own timeout, and the delivery only fails when every channel has failed.
+ * <p>
+ * Each attempt runs on its own virtual thread, which is interrupted when the attempt times out or
+ * another channel has delivered; blocking socket I/O on a virtual thread is aborted by the interrupt.
+ * A failed delivery is only reported once every attempt has stopped, so a retry never overlaps a
+ * gateway call that is still running.
+ * <p>
+ * Channels without a registered {@link OtpChannelSender} are skipped, so ALL_CHANNELS means
+ * "every channel we can currently send through".
+ */
+@Slf4j
+@Component
+public class OtpChannelDispatcher {
+
+    private static final Map<VerificationChannels, List<VerificationChannels>> COMPOSITES = Map.of(
+            VerificationChannels.EMAIL_AND_SMS, List.of(VerificationChannels.SMS, VerificationChannels.EMAIL),
+            VerificationChannels.SMS_AND_WHATSAPP, List.of(VerificationChannels.SMS, VerificationChannels.WHATSAPP),
+            VerificationChannels.ALL_CHANNELS, List.of(VerificationChannels.SMS, VerificationChannels.EMAIL,
+                    VerificationChannels.WHATSAPP, VerificationChannels.VOICE_CALL, VerificationChannels.PUSH_NOTIFICATION)
+    );
+
+    private final Map<VerificationChannels, OtpChannelSender> senders = new EnumMap<>(VerificationChannels.class);
+
+    // How long a timed-out attempt gets to stop after being interrupted
+    @Value("${app.otp-delivery.abort-grace-ms:5000}")
+    private long abortGraceMillis;
+
+    public OtpChannelDispatcher(List<OtpChannelSender> channelSenders) {
+        for (OtpChannelSender sender : channelSenders) {
+            senders.put(sender.channel(), sender);
+        }
+    }
+
+    public boolean supports(VerificationChannels channel) {
+        return !resolve(channel).isEmpty();
+    }
+
+    /**
+     * Longest a dispatch can take: the slowest channel's timeout plus the grace for it to stop.
+     * The delivery lease must cover it, or the delivery could be claimed again mid-send.
+     */
+    public Duration longestAttempt() {
+        Duration longest = Duration.ZERO;
+        for (OtpChannelSender sender : senders.values()) {
+            if (sender.timeout().compareTo(longest) > 0) {
+                longest = sender.timeout();
+            }
+        }
+        return longest.plusMillis(abortGraceMillis);
+    }
+
+    /**
+     * @return the channel that delivered the OTP
+     * @throws AttemptStillRunningException when every channel failed but an interrupted attempt has not
+     *                                      stopped; the delivery must not be retried before its lease expires
+     */
+    public VerificationChannels dispatch(OtpDeliveryEntity delivery) throws Exception {
+        List<OtpChannelSender> targets = resolve(delivery.getChannel());
+        if (targets.isEmpty()) {
+            throw new RandomExceptions(delivery.getChannel() + " verification is not supported yet");
+        }
+
+        CompletableFuture<VerificationChannels> winner = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(targets.size());
+        List<Attempt> attempts = new ArrayList<>();
+
+        for (OtpChannelSender sender : targets) {
+            Attempt attempt = new Attempt(sender, delivery, winner, remaining);
+            attempts.add(attempt);
+            attempt.start();
+        }
+
+        try {
+            return winner.get();
+        } catch (ExecutionException e) {
+            awaitStopped(attempts, delivery);
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            // Slower channels are abandoned once one has delivered
+            attempts.forEach(Attempt::abort);
+        }
+    }
+
+    private void awaitStopped(List<Attempt> attempts, OtpDeliveryEntity delivery) throws InterruptedException, AttemptStillRunningException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(abortGraceMillis);
+        for (Attempt attempt : attempts) {
+            Duration left = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+            if (!attempt.thread.join(left)) {
+                throw new AttemptStillRunningException("OTP delivery " + delivery.getId() + " via "
+                        + attempt.sender.channel() + " did not stop after being interrupted");
+            }
+        }
+    }
+
+    private List<OtpChannelSender> resolve(VerificationChannels channel) {
+        List<OtpChannelSender> resolved = new ArrayList<>();
+        for (VerificationChannels concrete : COMPOSITES.getOrDefault(channel, List.of(channel))) {
+            OtpChannelSender sender = senders.get(concrete);
+            if (sender != null) {
+                resolved.add(sender);
+            }
+        }
+        return resolved;
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root instanceof TimeoutException ? "timed out" : root.getMessage();
+    }
+
+    /**
+     * One channel's send. Settles exactly once: delivered, failed, timed out, or abandoned.
+     */
+    private static final class Attempt implements Runnable {
+
+        private final OtpChannelSender sender;
+        private final OtpDeliveryEntity delivery;
+        private final CompletableFuture<VerificationChannels> winner;
+        private final AtomicInteger remaining;
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private volatile Thread thread;
+
+        Attempt(OtpChannelSender sender, OtpDeliveryEntity delivery,
+                CompletableFuture<VerificationChannels> winner, AtomicInteger remaining) {
+            this.sender = sender;
+            this.delivery = delivery;
+            this.winner = winner;
+            this.remaining = remaining;
+        }
+
+        void start() {
+            thread = Thread.ofVirtual().name("otp-" + sender.channel().name().toLowerCase()).unstarted(this);
+            thread.start();
+            CompletableFuture.delayedExecutor(sender.timeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .execute(() -> fail(new TimeoutException(sender.channel() + " timed out")));
+        }
+
+        @Override
+        public void run() {
+            try {
+                sender.send(delivery);
+                if (settled.compareAndSet(false, true)) {
+                    winner.complete(sender.channel());
+                }
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+
+        private void fail(Exception error) {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            if (Thread.currentThread() != thread) {
+                thread.interrupt();
+            }
+            log.warn("OTP delivery {} via {} failed: {}", delivery.getId(), sender.channel(), rootMessage(error));
+            if (remaining.decrementAndGet() == 0) {
+                winner.completeExceptionally(error);
+            }
+        }
+
+        void abort() {
+            if (settled.compareAndSet(false, true)) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    public static class AttemptStillRunningException extends Exception {
+
+        public AttemptStillRunningException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import java.util.UUID;
+
+/**
+ * Published when an OTP delivery is queued; the worker picks it up once the transaction commits.
+ */
+record OtpDeliveryEnqueuedEvent(UUID deliveryId) {
+}
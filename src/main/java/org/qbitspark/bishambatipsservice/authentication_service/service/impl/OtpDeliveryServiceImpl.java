@@ -0,0 +1,168 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.OtpDeliveryStatus;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.payloads.OtpDeliveryStatusResponse;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.OtpDeliveryRepository;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpDeliveryService;
+import org.qbitspark.bishambatipsservice.authentication_service.utils.TempTokenHashing;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemNotFoundException;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.RandomExceptions;
+import org.qbitspark.bishambatipsservice.globesecurity.AesGcmCipher;
+import org.qbitspark.bishambatipsservice.globesecurity.SecretKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OtpDeliveryServiceImpl implements OtpDeliveryService {
+
+    private final OtpDeliveryRepository otpDeliveryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OtpChannelDispatcher otpChannelDispatcher;
+
+    @Value("${app.otp-delivery.max-attempts:5}")
+    private int maxAttempts;
+
+    // A claimed delivery not finished within the lease is picked up again; never shorter than a dispatch can take
+    @Value("${app.otp-delivery.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${app.otp-delivery.retry-backoff-seconds:5}")
+    private long retryBackoffSeconds;
+
+    @Value("${app.otp-delivery.retention-hours:24}")
+    private long retentionHours;
+
+    // Pending OTPs are encrypted at rest with a key derived from this secret
+    @Value("${app.otp-delivery.encryption-secret:${app.jwt-secret:}}")
+    private String encryptionSecret;
+
+    private AesGcmCipher otpCipher;
+
+    @PostConstruct
+    void initCipher() {
+        otpCipher = new AesGcmCipher(SecretKeys.derive(encryptionSecret, "otp-delivery"));
+    }
+
+    @Override
+    @Transactional
+    public void enqueue(String tempToken, TempTokenPurpose purpose, VerificationChannels channel, AccountEntity account, String otpCode) throws RandomExceptions {
+        if (!otpChannelDispatcher.supports(channel)) {
+            throw new RandomExceptions(channel + " verification is not supported yet");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        OtpDeliveryEntity delivery = new OtpDeliveryEntity();
+        delivery.setTokenHash(TempTokenHashing.hash(tempToken));
+        delivery.setPurpose(purpose);
+        delivery.setChannel(channel);
+        delivery.setEmail(account.getEmail());
+        delivery.setPhoneNumber(account.getPhoneNumber());
+        delivery.setFirstName(account.getFirstName());
+        // Bound to the token hash, so a sealed code copied into another row does not decrypt
+        delivery.setSealedOtp(otpCipher.encrypt(otpCode.getBytes(StandardCharsets.UTF_8), delivery.getTokenHash()));
+        delivery.setStatus(OtpDeliveryStatus.PENDING);
+        delivery.setNextAttemptAt(now);
+        delivery.setCreatedAt(now);
+
+        OtpDeliveryEntity saved = otpDeliveryRepository.save(delivery);
+
+        // Sent right after commit; the polling worker is the fallback
+        eventPublisher.publishEvent(new OtpDeliveryEnqueuedEvent(saved.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OtpDeliveryStatusResponse getStatus(String tempToken) throws ItemNotFoundException, RandomExceptions {
+        OtpDeliveryEntity delivery = otpDeliveryRepository
+                .findFirstByTokenHashOrderByCreatedAtDesc(TempTokenHashing.hash(tempToken))
+                .orElseThrow(() -> new ItemNotFoundException("No OTP delivery found for this token"));
+
+        return new OtpDeliveryStatusResponse(
+                delivery.getStatus(),
+                delivery.getChannel(),
+                delivery.getDeliveredVia(),
+                delivery.getAttempts(),
+                delivery.getSentAt()
+        );
+    }
+
+    @Override
+    @Transactional
+    public List<OtpDeliveryEntity> claimDueDeliveries(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OtpDeliveryEntity> due = otpDeliveryRepository.findDueForUpdate(now, limit);
+        List<OtpDeliveryEntity> claimed = new ArrayList<>(due.size());
+        Duration configured = Duration.ofSeconds(leaseSeconds);
+        Duration longest = otpChannelDispatcher.longestAttempt();
+        Duration lease = longest.compareTo(configured) > 0 ? longest : configured;
+
+        for (OtpDeliveryEntity delivery : due) {
+            delivery.setStatus(OtpDeliveryStatus.SENDING);
+            delivery.setAttempts(delivery.getAttempts() + 1);
+            delivery.setNextAttemptAt(now.plus(lease));
+            delivery.setOtpCode(new String(otpCipher.decrypt(delivery.getSealedOtp(), delivery.getTokenHash()),
+                    StandardCharsets.UTF_8));
+            claimed.add(delivery);
+        }
+
+        return claimed;
+    }
+
+    @Override
+    @Transactional
+    public void markSent(UUID deliveryId, VerificationChannels deliveredVia) {
+        otpDeliveryRepository.findById(deliveryId).ifPresent(delivery -> {
+            delivery.setStatus(OtpDeliveryStatus.SENT);
+            delivery.setDeliveredVia(deliveredVia);
+            delivery.setSentAt(LocalDateTime.now());
+            // sealed_otp is NOT NULL; a finished delivery keeps no code
+            delivery.setSealedOtp(new byte[0]);
+            delivery.setLastError(null);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void markFailed(UUID deliveryId, String error) {
+        otpDeliveryRepository.findById(deliveryId).ifPresent(delivery -> {
+            delivery.setLastError(error != null && error.length() > 255 ? error.substring(0, 255) : error);
+
+            if (delivery.getAttempts() >= maxAttempts) {
+                delivery.setStatus(OtpDeliveryStatus.FAILED);
+                delivery.setSealedOtp(new byte[0]);
+                log.warn("OTP delivery {} failed after {} attempts: {}", deliveryId, delivery.getAttempts(), error);
+                return;
+            }
+
+            // Exponential backoff: 5s, 10s, 20s, ...
+            long backoff = retryBackoffSeconds << (delivery.getAttempts() - 1);
+            delivery.setStatus(OtpDeliveryStatus.PENDING);
+            delivery.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+        });
+    }
+
+    @Override
+    @Transactional
+    public int deleteFinishedDeliveries() {
+        return otpDeliveryRepository.deleteFinishedBefore(LocalDateTime.now().minusHours(retentionHours));
+    }
+}
@@ -0,0 +1,113 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpDeliveryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Sends queued OTP messages on virtual threads, off the request thread.
+ * A delivery is claimed (leased) in a short transaction, sent without holding a connection,
+ * then marked sent or scheduled for retry.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OtpDeliveryWorker {
+
+    private final OtpDeliveryService otpDeliveryService;
+    private final OtpChannelDispatcher otpChannelDispatcher;
+
+    // Upper bound on gateway calls in flight from this node
+    @Value("${app.otp-delivery.concurrency:32}")
+    private int concurrency;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore inFlight;
+
+    @PostConstruct
+    void initPermits() {
+        inFlight = new Semaphore(concurrency);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEnqueued(OtpDeliveryEnqueuedEvent event) {
+        executor.submit(this::drain);
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp-delivery.poll-interval-ms:2000}")
+    public void poll() {
+        drain();
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp-delivery.cleanup-interval-ms:3600000}",
+            initialDelayString = "${app.otp-delivery.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        int deleted = otpDeliveryService.deleteFinishedDeliveries();
+        if (deleted > 0) {
+            log.info("Deleted {} finished OTP deliveries", deleted);
+        }
+    }
+
+    // Runs on the scheduler thread too, so it never waits for a permit: only what is free now is claimed
+    private void drain() {
+        int permits = inFlight.availablePermits();
+        if (permits == 0 || !inFlight.tryAcquire(permits)) {
+            // Taken by a concurrent drain; the next poll or enqueue event picks up the rest
+            return;
+        }
+
+        List<OtpDeliveryEntity> claimed;
+        try {
+            claimed = otpDeliveryService.claimDueDeliveries(permits);
+        } catch (Exception e) {
+            inFlight.release(permits);
+            log.error("Failed to claim OTP deliveries", e);
+            return;
+        }
+
+        // One permit per claimed delivery, released when its send finishes
+        inFlight.release(permits - claimed.size());
+        for (OtpDeliveryEntity delivery : claimed) {
+            executor.submit(() -> {
+                try {
+                    deliver(delivery);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void deliver(OtpDeliveryEntity delivery) {
+        try {
+            VerificationChannels deliveredVia = otpChannelDispatcher.dispatch(delivery);
+            otpDeliveryService.markSent(delivery.getId(), deliveredVia);
+        } catch (OtpChannelDispatcher.AttemptStillRunningException e) {
+            // Stays SENDING under its lease, which outlasts the attempt, instead of being retried right away
+            log.warn("OTP delivery {} left for lease expiry: {}", delivery.getId(), e.getMessage());
+        } catch (Exception e) {
+            log.warn("OTP delivery {} via {} failed (attempt {}): {}",
+                    delivery.getId(), delivery.getChannel(), delivery.getAttempts(), e.getMessage());
+            otpDeliveryService.markFailed(delivery.getId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.close();
+    }
+}
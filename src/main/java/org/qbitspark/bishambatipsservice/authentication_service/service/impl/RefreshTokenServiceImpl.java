@@ -0,0 +1,232 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.RefreshTokenEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.RefreshTokenRepository;
+import org.qbitspark.bishambatipsservice.authentication_service.service.RefreshTokenService;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.TokenExpiredException;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.TokenInvalidException;
+import org.qbitspark.bishambatipsservice.globesecurity.JWTProvider;
+import org.qbitspark.bishambatipsservice.globesecurity.RevokedTokenDenylist;
+import org.qbitspark.bishambatipsservice.globesecurity.VerifiedTokenClaims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh tokens rotate on every use. Exchanging a token is a single conditional update, so of
+ * any number of concurrent refreshes with one token exactly one wins. A token presented after it
+ * was exchanged means it leaked (or is being replayed), and its whole family is revoked.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JWTProvider tokenProvider;
+    private final RevokedTokenDenylist revokedTokenDenylist;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.jwt.refresh.purge.batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Value("${app.jwt.refresh.purge.max-batches:50}")
+    private int purgeMaxBatches;
+
+    @Override
+    @Transactional
+    public String issueRefreshToken(AccountEntity account, Authentication authentication) {
+        return issue(account, authentication, UUID.randomUUID(), UUID.randomUUID().toString());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public ConsumedRefreshToken consumeRefreshToken(String refreshToken) throws TokenInvalidException {
+        VerifiedTokenClaims claims = verify(refreshToken);
+        String jti = claims.getTokenId();
+
+        // Hot path: used and revoked ids are rejected from memory
+        if (revokedTokenDenylist.isRevoked(jti)) {
+            throw rejectUnusable(jti);
+        }
+
+        // The successor's id is recorded by the same statement that marks this token used
+        String nextJti = UUID.randomUUID().toString();
+        if (refreshTokenRepository.markUsed(jti, nextJti, LocalDateTime.now()) == 0) {
+            // Unknown, exchanged concurrently, or used/revoked on another node since the last denylist sync
+            throw rejectUnusable(jti);
+        }
+
+        UUID familyId = claims.getFamilyId();
+        if (familyId == null) {
+            // Issued before the family id was embedded
+            familyId = refreshTokenRepository.findFamilyIdByJti(jti)
+                    .orElseThrow(() -> new TokenInvalidException("Unknown refresh token"));
+        }
+
+        return new ConsumedRefreshToken(jti, familyId, claims.getSubject(), nextJti);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public String rotateRefreshToken(ConsumedRefreshToken consumed, AccountEntity account, Authentication authentication) {
+        String token = issue(account, authentication, consumed.familyId(), consumed.nextJti());
+
+        // Not revoked: used_at/replaced_by_jti record the exchange, and a replay has to reach reuse detection
+        denyAfterCommit(List.of(consumed.jti()));
+
+        return token;
+    }
+
+    @Override
+    @Transactional
+    public void revokeRefreshTokenFamily(String refreshToken) throws TokenInvalidException {
+        VerifiedTokenClaims claims = verify(refreshToken);
+
+        UUID familyId = claims.getFamilyId();
+        if (familyId == null) {
+            familyId = refreshTokenRepository.findFamilyIdByJti(claims.getTokenId())
+                    .orElseThrow(() -> new TokenInvalidException("Unknown refresh token"));
+        }
+
+        revokeFamily(familyId);
+    }
+
+    @Override
+    @Transactional
+    public void revokeAllForAccount(AccountEntity account) {
+        List<String> jtis = refreshTokenRepository.findActiveJtisByAccount(account);
+        refreshTokenRepository.revokeAllForAccount(account, LocalDateTime.now());
+        denyAfterCommit(jtis);
+    }
+
+    /**
+     * Deletes expired rows in batches, each in its own transaction. Runs on every node; the
+     * deletes are idempotent, so overlapping runs only repeat a little work.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.refresh.denylist.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.jwt.refresh.denylist.rebuild-interval-ms:3600000}")
+    public void purgeExpired() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+
+        long total = 0;
+        for (int batch = 0; batch < purgeMaxBatches; batch++) {
+            Integer rows = transactionTemplate.execute(status ->
+                    refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize));
+            total += rows == null ? 0 : rows;
+            if (rows == null || rows < purgeBatchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Purged {} expired refresh tokens", total);
+        }
+    }
+
+    /**
+     * Decides why a token cannot be exchanged. An exchanged token whose family is still live
+     * is a replay, and the family is revoked.
+     */
+    private TokenInvalidException rejectUnusable(String jti) {
+        Optional<RefreshTokenEntity> stored = refreshTokenRepository.findByJti(jti);
+        if (stored.isEmpty()) {
+            return new TokenInvalidException("Unknown refresh token");
+        }
+
+        RefreshTokenEntity token = stored.get();
+        if (token.isUsed() && !token.getRevoked()) {
+            log.warn("Refresh token reuse detected for family {}, revoking family", token.getFamilyId());
+            revokeFamilyAfterCompletion(token.getFamilyId());
+            return new TokenInvalidException("Refresh token has already been used. Please login again");
+        }
+
+        return new TokenInvalidException("Refresh token has been revoked. Please login again");
+    }
+
+    // The failed refresh rolls back, so the revocation runs in its own transaction once it has
+    // finished (and released whatever row locks its update took)
+    private void revokeFamilyAfterCompletion(UUID familyId) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            requiresNew.executeWithoutResult(status -> revokeFamily(familyId));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                requiresNew.executeWithoutResult(transactionStatus -> revokeFamily(familyId));
+            }
+        });
+    }
+
+    private void revokeFamily(UUID familyId) {
+        List<String> jtis = refreshTokenRepository.findActiveJtisByFamilyId(familyId);
+        refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now());
+        denyAfterCommit(jtis);
+    }
+
+    // Ids enter the denylist only once the database agrees, so a rolled-back refresh can be retried
+    private void denyAfterCommit(Collection<String> jtis) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revokedTokenDenylist.addAll(jtis);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revokedTokenDenylist.addAll(jtis);
+            }
+        });
+    }
+
+    private String issue(AccountEntity account, Authentication authentication, UUID familyId, String jti) {
+        LocalDateTime now = LocalDateTime.now();
+
+        RefreshTokenEntity entity = new RefreshTokenEntity();
+        entity.setJti(jti);
+        entity.setFamilyId(familyId);
+        entity.setAccount(account);
+        entity.setIssuedAt(now);
+        entity.setExpiresAt(now.plusDays(tokenProvider.getRefreshTokenExpirationDays()));
+        refreshTokenRepository.save(entity);
+
+        return tokenProvider.generateRefreshToken(authentication, jti, familyId);
+    }
+
+    private VerifiedTokenClaims verify(String refreshToken) throws TokenInvalidException {
+        try {
+            VerifiedTokenClaims claims = tokenProvider.verifyToken(refreshToken, "REFRESH");
+            if (claims.getTokenId() == null) {
+                // Issued before rotation was introduced; cannot be tracked or revoked
+                throw new TokenInvalidException("Refresh token is no longer supported. Please login again");
+            }
+            return claims;
+        } catch (TokenExpiredException e) {
+            throw new TokenInvalidException("Refresh token has expired. Please login again");
+        } catch (TokenInvalidException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TokenInvalidException("Invalid refresh token");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpChannelSender;
+import org.qbitspark.bishambatipsservice.sms_service.GlobeSmsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@RequiredArgsConstructor
+public class SmsOtpChannelSender implements OtpChannelSender {
+
+    private final GlobeSmsService globeSmsService;
+
+    @Value("${app.otp-delivery.sms-timeout-ms:20000}")
+    private long timeoutMillis;
+
+    @Override
+    public VerificationChannels channel() {
+        return VerificationChannels.SMS;
+    }
+
+    @Override
+    public Duration timeout() {
+        return Duration.ofMillis(timeoutMillis);
+    }
+
+    @Override
+    public void send(OtpDeliveryEntity delivery) {
+        globeSmsService.sendOTPSms(delivery.getPhoneNumber(), delivery.getOtpCode());
+    }
+}
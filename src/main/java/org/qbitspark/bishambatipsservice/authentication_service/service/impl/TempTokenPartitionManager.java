@@ -0,0 +1,195 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Maintains the daily partitions of temp_token_table once it has been converted with
+ * db/temp_token_table_partitioning.sql: creates partitions ahead of time and drops whole
+ * partitions past the retention window, instead of deleting rows (TempTokenPurgeJob stands down).
+ * Rows that landed in the DEFAULT partition (no daily partition existed for them) are moved into
+ * their own daily partition first, since Postgres refuses to create a partition whose range
+ * overlaps rows in the default one.
+ * <p>
+ * Like the purge job, a run holds a Postgres advisory lock, so only one node issues DDL at a time.
+ * A failed run is logged and retried on the next interval; it never stops the application from starting.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.temp-token.partitioning.enabled", havingValue = "true")
+public class TempTokenPartitionManager {
+
+    // Arbitrary application-wide key for pg_try_advisory_lock
+    private static final long PARTITION_LOCK_KEY = 0x7465_6d70_7061_7274L;
+
+    private static final String PARENT_TABLE = "temp_token_table";
+    private static final String PARTITION_PREFIX = PARENT_TABLE + "_p";
+    private static final String DEFAULT_PARTITION = PARENT_TABLE + "_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.temp-token.partitioning.premake-days:2}")
+    private int premakeDays;
+
+    // Partitions are dropped once every row in them is older than this (used tokens were kept 24h before)
+    @Value("${app.temp-token.partitioning.retention-days:1}")
+    private int retentionDays;
+
+    @PostConstruct
+    void initPartitions() {
+        maintainPartitions();
+    }
+
+    @Scheduled(fixedDelayString = "${app.temp-token.partitioning.interval-ms:3600000}",
+            initialDelayString = "${app.temp-token.partitioning.interval-ms:3600000}")
+    public void maintainPartitions() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) this::maintainWithLock);
+        } catch (DataAccessException e) {
+            // Partitions are made premake-days ahead, so a missed run has room to be retried
+            log.error("Temp token partition maintenance failed", e);
+        }
+    }
+
+    private Void maintainWithLock(Connection connection) throws SQLException {
+        if (!tryLock(connection)) {
+            log.debug("Temp token partition maintenance skipped, another node holds the lock");
+            return null;
+        }
+
+        try {
+            // Every statement runs on the connection that holds the session-level lock
+            JdbcTemplate locked = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            LocalDate today = LocalDate.now();
+
+            // A partition for day D holds rows created before D + 1
+            LocalDate oldestKept = today.minusDays(retentionDays + 1L);
+
+            splitDefaultPartition(connection, locked, oldestKept);
+
+            for (int day = 0; day <= premakeDays; day++) {
+                createPartition(locked, today.plusDays(day));
+            }
+
+            for (String partition : existingPartitions(locked)) {
+                LocalDate day = partitionDay(partition);
+                if (day != null && day.isBefore(oldestKept)) {
+                    locked.execute("DROP TABLE IF EXISTS " + partition);
+                    log.info("Dropped temp token partition {}", partition);
+                }
+            }
+            return null;
+        } finally {
+            unlock(connection);
+        }
+    }
+
+    /**
+     * Moves rows out of the DEFAULT partition into daily partitions. The default partition is detached
+     * for the duration, in one transaction, so inserts wait instead of landing in it meanwhile.
+     */
+    private void splitDefaultPartition(Connection connection, JdbcTemplate locked, LocalDate oldestKept)
+            throws SQLException {
+        // Tables converted before the default partition was added to the script get it here
+        locked.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + PARENT_TABLE + " DEFAULT");
+
+        int expired = locked.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE created_at < ?", oldestKept);
+        if (expired > 0) {
+            log.info("Deleted {} expired temp tokens from {}", expired, DEFAULT_PARTITION);
+        }
+
+        List<LocalDate> days = locked.queryForList(
+                "SELECT DISTINCT CAST(created_at AS date) FROM " + DEFAULT_PARTITION + " ORDER BY 1", LocalDate.class);
+        if (days.isEmpty()) {
+            return;
+        }
+        // Only happens when maintenance fell behind the premake window; worth someone's attention
+        log.warn("Temp tokens found in {} for {}, moving them into daily partitions", DEFAULT_PARTITION, days);
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            locked.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+            for (LocalDate day : days) {
+                String partition = createPartition(locked, day);
+                int moved = locked.update("INSERT INTO " + partition + " SELECT * FROM " + DEFAULT_PARTITION
+                        + " WHERE created_at >= ? AND created_at < ?", day, day.plusDays(1));
+                locked.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE created_at >= ? AND created_at < ?",
+                        day, day.plusDays(1));
+                log.info("Moved {} temp tokens from {} to {}", moved, DEFAULT_PARTITION, partition);
+            }
+            locked.execute("ALTER TABLE " + PARENT_TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+            connection.commit();
+        } catch (SQLException | DataAccessException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, PARTITION_LOCK_KEY);
+            try (ResultSet rs = lock.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            unlock.setLong(1, PARTITION_LOCK_KEY);
+            unlock.execute();
+        }
+    }
+
+    private String createPartition(JdbcTemplate jdbcTemplate, LocalDate day) {
+        String partition = PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+        jdbcTemplate.execute(String.format(
+                "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                partition, PARENT_TABLE, day, day.plusDays(1)));
+        return partition;
+    }
+
+    private List<String> existingPartitions(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("""
+                        SELECT child.relname
+                        FROM pg_inherits
+                        JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                        JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+                        WHERE parent.relname = ?""",
+                String.class, PARENT_TABLE);
+    }
+
+    private LocalDate partitionDay(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
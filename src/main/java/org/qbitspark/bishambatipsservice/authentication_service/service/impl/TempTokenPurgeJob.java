@@ -0,0 +1,169 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes expired and old used rows from temp_token_table in small batches, so the table
+ * (and the token-hash index every OTP lookup goes through) stays small without long-running deletes.
+ * <p>
+ * Each batch is its own auto-committed statement. A Postgres advisory lock held for the run
+ * makes sure only one node purges at a time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TempTokenPurgeJob {
+
+    // Arbitrary application-wide key for pg_try_advisory_lock
+    private static final long PURGE_LOCK_KEY = 0x7465_6d70_746f_6b6eL;
+
+    private static final String DELETE_BATCH = """
+            DELETE FROM temp_token_table
+            WHERE ctid IN (
+                SELECT ctid FROM temp_token_table
+                WHERE expires_at < ? OR (is_used = true AND created_at < ?)
+                LIMIT ?
+            )""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.temp-token.purge.enabled:true}")
+    private boolean enabled;
+
+    // With daily partitions, retention drops whole partitions instead (TempTokenPartitionManager)
+    @Value("${app.temp-token.partitioning.enabled:false}")
+    private boolean partitioned;
+
+    @Value("${app.temp-token.purge.batch-size:1000}")
+    private int batchSize;
+
+    // Upper bound on rows per run is batch-size * max-batches; the rest waits for the next run
+    @Value("${app.temp-token.purge.max-batches:50}")
+    private int maxBatches;
+
+    @Value("${app.temp-token.purge.pause-ms:50}")
+    private long pauseMillis;
+
+    @Value("${app.temp-token.purge.used-retention-hours:24}")
+    private long usedRetentionHours;
+
+    private Counter purgedRows;
+    private DistributionSummary rowsPerRun;
+    private Timer runTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        purgedRows = Counter.builder("temp_tokens.purge.rows")
+                .description("Temp token rows deleted by the purge job")
+                .register(meterRegistry);
+        rowsPerRun = DistributionSummary.builder("temp_tokens.purge.rows_per_run")
+                .description("Temp token rows deleted per purge run")
+                .register(meterRegistry);
+        runTimer = Timer.builder("temp_tokens.purge.duration")
+                .description("Time spent per purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.temp-token.purge.interval-ms:300000}",
+            initialDelayString = "${app.temp-token.purge.initial-delay-ms:60000}")
+    public void scheduledPurge() {
+        if (enabled && !partitioned) {
+            purge();
+        }
+    }
+
+    /**
+     * Runs one purge pass.
+     *
+     * @return rows deleted, or -1 when another node holds the purge lock
+     */
+    public long purge() {
+        Long deleted = runTimer.record(() -> jdbcTemplate.execute((ConnectionCallback<Long>) this::purgeWithLock));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} temp token rows", deleted);
+        }
+        return deleted == null ? 0 : deleted;
+    }
+
+    private long purgeWithLock(Connection connection) throws SQLException {
+        if (!tryLock(connection)) {
+            log.debug("Temp token purge skipped, another node holds the lock");
+            return -1;
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp expiredBefore = Timestamp.valueOf(now);
+            Timestamp usedBefore = Timestamp.valueOf(now.minusHours(usedRetentionHours));
+
+            long total = 0;
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_BATCH)) {
+                for (int batch = 0; batch < maxBatches; batch++) {
+                    delete.setTimestamp(1, expiredBefore);
+                    delete.setTimestamp(2, usedBefore);
+                    delete.setInt(3, batchSize);
+                    int rows = delete.executeUpdate();
+
+                    total += rows;
+                    purgedRows.increment(rows);
+
+                    if (rows < batchSize) {
+                        break;
+                    }
+                    pause();
+                }
+            }
+
+            rowsPerRun.record(total);
+            return total;
+        } finally {
+            unlock(connection);
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, PURGE_LOCK_KEY);
+            try (ResultSet rs = lock.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            unlock.setLong(1, PURGE_LOCK_KEY);
+            unlock.execute();
+        }
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
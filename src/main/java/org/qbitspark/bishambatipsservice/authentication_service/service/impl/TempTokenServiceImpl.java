@@ -3,39 +3,38 @@ package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
 import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
 import org.qbitspark.bishambatipsservice.authentication_service.entity.TempTokenEntity;
 import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
 import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
-import org.qbitspark.bishambatipsservice.authentication_service.repo.TempTokenRepository;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpDeliveryService;
 import org.qbitspark.bishambatipsservice.authentication_service.service.TempTokenService;
-import org.qbitspark.bishambatipsservice.emails_service.GlobeMailService;
+import org.qbitspark.bishambatipsservice.authentication_service.service.TempTokenStore;
+import org.qbitspark.bishambatipsservice.authentication_service.utils.OtpHashingUtils;
+import org.qbitspark.bishambatipsservice.authentication_service.utils.TempTokenHashing;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemNotFoundException;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.RandomExceptions;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.VerificationException;
 import org.qbitspark.bishambatipsservice.globesecurity.JWTProvider;
-import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class TempTokenServiceImpl implements TempTokenService {
 
-    private final TempTokenRepository tempTokenRepository;
+    private final TempTokenStore tempTokenStore;
     private final JWTProvider jwtProvider;
-    private final PasswordEncoder passwordEncoder;
+    private final OtpHashingUtils otpHashingUtils;
     private final AccountRepo accountRepo;
-    private final GlobeMailService globeMailService;
+    private final OtpDeliveryService otpDeliveryService;
 
     @Value("${temp.token.expiry.minutes:10}")
     private int tempTokenExpiryMinutes;
@@ -52,6 +51,13 @@ public class TempTokenServiceImpl implements TempTokenService {
     @Value("${temp.token.resend.cooldown.minutes:2}")
     private int resendCooldownMinutes;
 
+    // jwt: signed JWT carrying the claims; opaque: 128-bit random handle, all state stays in the token store
+    @Value("${app.temp-token.format:jwt}")
+    private String tempTokenFormat;
+
+    private static final int OPAQUE_TOKEN_BYTES = 16;
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+
     @Override
     @Transactional
     public String createTempToken(AccountEntity account, TempTokenPurpose purpose, String identifier, String otpCode) throws RandomExceptions {
@@ -68,24 +74,15 @@ public class TempTokenServiceImpl implements TempTokenService {
         // Invalidate any existing active tokens for the same purpose
         invalidateAllTokensForPurpose(account, userIdentifier, purpose);
 
-        // Create a JWT payload
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userIdentifier", userIdentifier);
-        claims.put("purpose", purpose.name());
-        claims.put("identifier", identifier);
-        if (account != null) {
-            claims.put("userId", account.getId().toString());
-        }
-        claims.put("exp", System.currentTimeMillis() + ((long) tempTokenExpiryMinutes * 60 * 1000));
-
-        // Generate JWT token
-        String jwtToken = jwtProvider.generateTempToken(claims);
+        String tempTokenValue = "opaque".equalsIgnoreCase(tempTokenFormat)
+                ? generateOpaqueToken()
+                : generateJwtToken(account, purpose, identifier, userIdentifier);
 
         // Hash the token for database storage
-        String tokenHash = hashString(jwtToken);
+        byte[] tokenHash = hashString(tempTokenValue);
 
-        // Hash the OTP for secure storage
-        String otpHash = passwordEncoder.encode(otpCode);
+        // Hash the OTP for secure storage (keyed HMAC, not BCrypt: the code is short-lived and attempt-limited)
+        String otpHash = otpHashingUtils.hashOtp(otpCode);
 
         // Create temp token entity
         TempTokenEntity tempToken = new TempTokenEntity();
@@ -98,51 +95,81 @@ public class TempTokenServiceImpl implements TempTokenService {
         tempToken.setCreatedAt(LocalDateTime.now());
         tempToken.setExpiresAt(LocalDateTime.now().plusMinutes(tempTokenExpiryMinutes));
 
-        tempTokenRepository.save(tempToken);
+        tempTokenStore.save(tempToken);
 
-        return jwtToken;
+        return tempTokenValue;
     }
 
-    @Override
-    @Transactional
-    public AccountEntity validateTempTokenAndOTP(String tempToken, String otpCode) throws VerificationException, ItemNotFoundException, RandomExceptions {
+    private String generateJwtToken(AccountEntity account, TempTokenPurpose purpose, String identifier, String userIdentifier) {
+        // Create a JWT payload
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userIdentifier", userIdentifier);
+        claims.put("purpose", purpose.name());
+        claims.put("identifier", identifier);
+        if (account != null) {
+            claims.put("userId", account.getId().toString());
+        }
+        claims.put("exp", System.currentTimeMillis() + ((long) tempTokenExpiryMinutes * 60 * 1000));
+
+        return jwtProvider.generateTempToken(claims);
+    }
 
-        // Hash the provided token to find it in a database
-        String tokenHash = hashString(tempToken);
+    /**
+     * 128-bit random handle, URL-safe Base64 without padding (22 chars)
+     */
+    String generateOpaqueToken() {
+        byte[] bytes = new byte[OPAQUE_TOKEN_BYTES];
+        TOKEN_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
 
-        // Find the temp token
-        TempTokenEntity tempTokenEntity = tempTokenRepository.findByTokenHash(tokenHash)
+    @Override
+    public TempTokenEntity findActiveTempToken(String tempToken) throws VerificationException {
+        TempTokenEntity tempTokenEntity = tempTokenStore.findByTokenHash(hashString(tempToken))
                 .orElseThrow(() -> new VerificationException("Invalid or expired temporary token"));
 
-        // Check if a token is already used
         if (tempTokenEntity.getIsUsed()) {
             throw new VerificationException("Token has already been used");
         }
 
-        // Check if the token is expired
         if (tempTokenEntity.isExpired()) {
             throw new VerificationException("Token has expired");
         }
 
+        return tempTokenEntity;
+    }
+
+    @Override
+    @Transactional
+    public AccountEntity validateTempTokenAndOTP(String tempToken, String otpCode) throws VerificationException, ItemNotFoundException, RandomExceptions {
+
+        // Find the temp token by its hash; rejects used and expired tokens
+        TempTokenEntity tempTokenEntity = findActiveTempToken(tempToken);
+
         // Check if max attempts reached
         if (tempTokenEntity.isMaxAttemptsReached()) {
             throw new VerificationException("Maximum verification attempts exceeded");
         }
 
         // Verify OTP
-        if (!passwordEncoder.matches(otpCode, tempTokenEntity.getOtpHash())) {
+        if (!otpHashingUtils.matches(otpCode, tempTokenEntity.getOtpHash())) {
             // Increment failed attempts
-            tempTokenEntity.incrementAttempts();
-            tempTokenRepository.save(tempTokenEntity);
+            tempTokenStore.incrementAttempts(tempTokenEntity.getTokenHash());
             throw new VerificationException("Invalid OTP code");
         }
 
-        // Mark token as used
-        tempTokenEntity.markAsUsed();
-        tempTokenRepository.save(tempTokenEntity);
+        // Mark token as used; a concurrent verification of the same token may have got there first
+        if (!tempTokenStore.markUsed(tempTokenEntity.getTokenHash())) {
+            throw new VerificationException("Token has already been used");
+        }
 
         AccountEntity account = tempTokenEntity.getAccount();
 
+        // Roles are lazy; the caller builds authorities from them after this transaction ends
+        if (account != null) {
+            Hibernate.initialize(account.getRoles());
+        }
+
         //Todo: Take action based in purpose of token
         switch (tempTokenEntity.getPurpose()) {
 
@@ -159,42 +186,18 @@ public class TempTokenServiceImpl implements TempTokenService {
     @Transactional
     public String resendOTP(String tempToken) throws VerificationException, ItemNotFoundException, RandomExceptions {
 
-        // Validate and decode the temp token first
-        Claims claims;
-        try {
-            if (!jwtProvider.validateTempToken(tempToken, "")) {
-                throw new VerificationException("Invalid temporary token");
-            }
-            claims = jwtProvider.getTempTokenClaims(tempToken);
-        } catch (Exception e) {
-            throw new VerificationException("Invalid or expired temporary token");
-        }
-
-        String userIdentifier = claims.get("userIdentifier", String.class);
-        String purpose = claims.get("purpose", String.class);
-        String identifier = claims.get("identifier", String.class);
+        // The stored token holds everything the claims used to carry, so no JWT parsing is needed
+        TempTokenEntity originalToken = findActiveTempToken(tempToken);
 
-        TempTokenPurpose tokenPurpose = TempTokenPurpose.valueOf(purpose);
+        String userIdentifier = originalToken.getUserIdentifier();
+        String identifier = originalToken.getIdentifier();
+        TempTokenPurpose tokenPurpose = originalToken.getPurpose();
 
         // Security checks
         if (!canResendOTP(userIdentifier, tokenPurpose)) {
             throw new RandomExceptions("Resend limit exceeded. Please wait before requesting again.");
         }
 
-        // Find the original temp token in a database
-        String tokenHash = hashString(tempToken);
-        TempTokenEntity originalToken = tempTokenRepository.findByTokenHash(tokenHash)
-                .orElseThrow(() -> new VerificationException("Token not found or already used"));
-
-        // Additional security checks
-        if (originalToken.getIsUsed()) {
-            throw new VerificationException("Token has already been used");
-        }
-
-        if (originalToken.isExpired()) {
-            throw new VerificationException("Token has expired");
-        }
-
         // Check a cooldown period
         LocalDateTime lastResend = getLastResendTime(userIdentifier, tokenPurpose);
         if (lastResend != null &&
@@ -210,14 +213,15 @@ public class TempTokenServiceImpl implements TempTokenService {
         String newOtpCode = generateOtpCode();
 
         // Invalidate the old token
-        originalToken.markAsUsed();
-        tempTokenRepository.save(originalToken);
+        if (!tempTokenStore.markUsed(originalToken.getTokenHash())) {
+            throw new VerificationException("Token has already been used");
+        }
 
         // Create a new temp token with new OTP
         String newTempToken = createTempToken(account, tokenPurpose, identifier, newOtpCode);
 
-        // Send OTP based on purpose and channel
-        sendOTPBasedOnPurpose(tokenPurpose, identifier, newOtpCode, account);
+        // Queued with the new token and sent after commit, like the first code
+        sendOTPBasedOnPurpose(tokenPurpose, newTempToken, newOtpCode, account);
 
         return newTempToken;
     }
@@ -266,62 +270,27 @@ public class TempTokenServiceImpl implements TempTokenService {
         );
 
         // Send password reset OTP
-        try {
-            globeMailService.sendOTPEmail(
-                    email,
-                    newOtpCode,
-                    account.getFirstName(),
-                    "Password Reset Request",
-                    "Please use this OTP to reset your password: "
-            );
-        } catch (Exception e) {
-            throw new RandomExceptions("Failed to send password reset email: " + e.getMessage());
-        }
+        otpDeliveryService.enqueue(tempToken, TempTokenPurpose.PASSWORD_RESET_OTP, VerificationChannels.EMAIL, account, newOtpCode);
 
         return tempToken;
     }
 
 
     @Transactional
-    public void invalidateAllTokensForPurpose(AccountEntity account, String userIdentifier, TempTokenPurpose purpose) {
-        List<TempTokenEntity> activeTokens;
-
+    public int invalidateAllTokensForPurpose(AccountEntity account, String userIdentifier, TempTokenPurpose purpose) {
+        // One set-based UPDATE, however many stale tokens are outstanding
         if (account != null) {
-            // For login/password reset - find by account
-            activeTokens = tempTokenRepository.findByAccountAndPurposeAndIsUsed(account, purpose, false);
-        } else {
-            // For registration - find by userIdentifier
-            activeTokens = tempTokenRepository.findByUserIdentifierAndPurposeAndIsUsed(userIdentifier, purpose, false);
+            // For login/password reset - match by account
+            return tempTokenStore.markUnusedAsUsedByAccount(account, purpose);
         }
 
-        // Mark them all as used
-        for (TempTokenEntity token : activeTokens) {
-            token.markAsUsed();
-        }
-
-        if (!activeTokens.isEmpty()) {
-            tempTokenRepository.saveAll(activeTokens);
-        }
+        // For registration - match by userIdentifier
+        return tempTokenStore.markUnusedAsUsedByUserIdentifier(userIdentifier, purpose);
     }
 
     @Override
-    @Transactional
     public void cleanupExpiredTokens() {
-        LocalDateTime now = LocalDateTime.now();
-
-        // Delete expired tokens
-        List<TempTokenEntity> expiredTokens = tempTokenRepository.findByExpiresAtBefore(now);
-        if (!expiredTokens.isEmpty()) {
-            tempTokenRepository.deleteAll(expiredTokens);
-        }
-
-        // Delete old used tokens (older than 1 day)
-        LocalDateTime cutoffTime = now.minusDays(1);
-        List<TempTokenEntity> oldUsedTokens = tempTokenRepository
-                .findByIsUsedAndCreatedAtBefore(true, cutoffTime);
-        if (!oldUsedTokens.isEmpty()) {
-            tempTokenRepository.deleteAll(oldUsedTokens);
-        }
+        tempTokenStore.purgeExpired();
     }
 
     @Override
@@ -334,30 +303,29 @@ public class TempTokenServiceImpl implements TempTokenService {
     public boolean isWithinRateLimit(AccountEntity account, String userIdentifier, TempTokenPurpose purpose) {
         LocalDateTime windowStart = LocalDateTime.now().minusMinutes(rateLimitWindowMinutes);
 
-        List<TempTokenEntity> recentTokens;
+        long recentTokens;
 
         if (account != null) {
             // For login/password reset - check by account
-            recentTokens = tempTokenRepository.findByAccountAndPurposeAndCreatedAtAfter(account, purpose, windowStart);
+            recentTokens = tempTokenStore.countByAccountCreatedAfter(account, purpose, windowStart);
         } else {
             // For registration - check by userIdentifier
-            recentTokens = tempTokenRepository.findByUserIdentifierAndPurposeAndCreatedAtAfter(userIdentifier, purpose, windowStart);
+            recentTokens = tempTokenStore.countByUserIdentifierCreatedAfter(userIdentifier, purpose, windowStart);
         }
 
-        return recentTokens.size() < rateLimitCount;
+        return recentTokens < rateLimitCount;
+    }
+
+    @Override
+    public byte[] hashToken(String tempToken) {
+        return hashString(tempToken);
     }
 
     /**
-     * Hash string using SHA-256
+     * Hash string using SHA-256, as the raw 32-byte digest stored in token_hash
      */
-    private String hashString(String input) throws RandomExceptions {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes());
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RandomExceptions("Error hashing token: " + e.getMessage());
-        }
+    byte[] hashString(String input) {
+        return TempTokenHashing.hash(input);
     }
 
     private void actAfterRegistrationOtpValid(AccountEntity account) {
@@ -380,10 +348,10 @@ public class TempTokenServiceImpl implements TempTokenService {
     public boolean canResendOTP(String userIdentifier, TempTokenPurpose purpose) {
         LocalDateTime windowStart = LocalDateTime.now().minusMinutes(rateLimitWindowMinutes);
 
-        List<TempTokenEntity> recentTokens = tempTokenRepository
-                .findByUserIdentifierAndPurposeAndCreatedAtAfter(userIdentifier, purpose, windowStart);
+        long recentTokens = tempTokenStore
+                .countByUserIdentifierCreatedAfter(userIdentifier, purpose, windowStart);
 
-        return recentTokens.size() < resendLimitCount;
+        return recentTokens < resendLimitCount;
     }
 
 
@@ -391,10 +359,10 @@ public class TempTokenServiceImpl implements TempTokenService {
     public int getRemainingResendAttempts(String userIdentifier, TempTokenPurpose purpose) {
         LocalDateTime windowStart = LocalDateTime.now().minusMinutes(rateLimitWindowMinutes);
 
-        List<TempTokenEntity> recentTokens = tempTokenRepository
-                .findByUserIdentifierAndPurposeAndCreatedAtAfter(userIdentifier, purpose, windowStart);
+        long recentTokens = tempTokenStore
+                .countByUserIdentifierCreatedAfter(userIdentifier, purpose, windowStart);
 
-        return Math.max(0, resendLimitCount - recentTokens.size());
+        return (int) Math.max(0, resendLimitCount - recentTokens);
     }
 
     @Override
@@ -412,58 +380,22 @@ public class TempTokenServiceImpl implements TempTokenService {
 
 
     private LocalDateTime getLastResendTime(String userIdentifier, TempTokenPurpose purpose) {
-        List<TempTokenEntity> recentTokens = tempTokenRepository
-                .findByUserIdentifierAndPurposeAndCreatedAtAfter(
-                        userIdentifier,
-                        purpose,
-                        LocalDateTime.now().minusHours(1)
-                );
-
-        return recentTokens.stream()
-                .map(TempTokenEntity::getCreatedAt)
-                .max(LocalDateTime::compareTo)
+        return tempTokenStore
+                .findLatestCreatedAt(userIdentifier, purpose, LocalDateTime.now().minusHours(1))
                 .orElse(null);
     }
 
-    private void sendOTPBasedOnPurpose(TempTokenPurpose purpose, String identifier,
+    private void sendOTPBasedOnPurpose(TempTokenPurpose purpose, String tempToken,
                                        String otpCode, AccountEntity account) throws RandomExceptions {
 
-        try {
-            switch (purpose) {
-                case REGISTRATION_OTP -> {
-                    String firstName = (account != null) ? account.getFirstName() : "User";
-                    globeMailService.sendOTPEmail(
-                            identifier,
-                            otpCode,
-                            firstName,
-                            "Welcome to BuildWise Books Support!",
-                            "Please use the following OTP to complete your registration: "
-                    );
-                }
-                case PASSWORD_RESET_OTP -> {
-                    String firstName = (account != null) ? account.getFirstName() : "User";
-                    globeMailService.sendOTPEmail(
-                            identifier,
-                            otpCode,
-                            firstName,
-                            "Password Reset Request",
-                            "Please use the following OTP to reset your password: "
-                    );
-                }
-                case LOGIN_OTP -> {
-                    String firstName = (account != null) ? account.getFirstName() : "User";
-                    globeMailService.sendOTPEmail(
-                            identifier,
-                            otpCode,
-                            firstName,
-                            "Login Verification",
-                            "Please use the following OTP to complete your login: "
-                    );
+        switch (purpose) {
+            case REGISTRATION_OTP, PASSWORD_RESET_OTP, LOGIN_OTP -> {
+                if (account == null) {
+                    throw new RandomExceptions("No account to send the OTP to");
                 }
-                default -> throw new RandomExceptions("Unsupported token purpose for resend");
+                otpDeliveryService.enqueue(tempToken, purpose, VerificationChannels.EMAIL, account, otpCode);
             }
-        } catch (Exception e) {
-            throw new RandomExceptions("Failed to send OTP: " + e.getMessage());
+            default -> throw new RandomExceptions("Unsupported token purpose for resend");
         }
     }
 
@@ -505,17 +437,7 @@ public class TempTokenServiceImpl implements TempTokenService {
         );
 
         // Send OTP via email
-        try {
-            globeMailService.sendOTPEmail(
-                    email,
-                    newOtpCode,
-                    account.getFirstName(),
-                    "Complete Your Registration",
-                    "Welcome back! Please use this OTP to complete your registration: "
-            );
-        } catch (Exception e) {
-            throw new RandomExceptions("Failed to send verification email: " + e.getMessage());
-        }
+        otpDeliveryService.enqueue(newTempToken, TempTokenPurpose.REGISTRATION_OTP, VerificationChannels.EMAIL, account, newOtpCode);
 
         return newTempToken;
     }
@@ -547,17 +469,7 @@ public class TempTokenServiceImpl implements TempTokenService {
         );
 
         // Send password reset OTP
-        try {
-            globeMailService.sendOTPEmail(
-                    email,
-                    newOtpCode,
-                    account.getFirstName(),
-                    "Password Reset Request",
-                    "Please use this OTP to reset your password: "
-            );
-        } catch (Exception e) {
-            throw new RandomExceptions("Failed to send password reset email: " + e.getMessage());
-        }
+        otpDeliveryService.enqueue(newTempToken, TempTokenPurpose.PASSWORD_RESET_OTP, VerificationChannels.EMAIL, account, newOtpCode);
 
         return newTempToken;
     }
@@ -585,17 +497,7 @@ public class TempTokenServiceImpl implements TempTokenService {
         );
 
         // Send login OTP
-        try {
-            globeMailService.sendOTPEmail(
-                    email,
-                    newOtpCode,
-                    account.getFirstName(),
-                    "Login Verification",
-                    "Please use this OTP to complete your login: "
-            );
-        } catch (Exception e) {
-            throw new RandomExceptions("Failed to send login verification email: " + e.getMessage());
-        }
+        otpDeliveryService.enqueue(newTempToken, TempTokenPurpose.LOGIN_OTP, VerificationChannels.EMAIL, account, newOtpCode);
 
         return newTempToken;
     }
@@ -0,0 +1,97 @@
+package org.qbitspark.bishambatipsservice.authentication_service.utils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.qbitspark.bishambatipsservice.globesecurity.SecretKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Hashes OTP codes with HMAC-SHA256 keyed by a server-side pepper, salted per token.
+ * Format: hmac$saltBase64$macBase64
+ * <p>
+ * An OTP lives for minutes and allows a handful of attempts (TempTokenEntity.maxAttempts), so
+ * brute-force resistance comes from the attempt limit and the pepper, not from a slow hash.
+ * Hashes without the prefix are legacy BCrypt rows and are still verified with the password encoder.
+ * <p>
+ * Without a dedicated {@code app.otp.pepper} the pepper is derived from the JWT secret under its
+ * own label; the raw JWT secret never keys the OTP MAC.
+ */
+@Component
+@RequiredArgsConstructor
+public class OtpHashingUtils {
+
+    private static final String PREFIX = "hmac$";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SALT_LENGTH = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${app.otp.pepper:}")
+    private String pepper;
+
+    @Value("${app.jwt-secret:}")
+    private String jwtSecret;
+
+    private SecretKeySpec pepperKey;
+
+    @PostConstruct
+    void initPepperKey() {
+        byte[] key = pepper == null || pepper.isBlank()
+                ? SecretKeys.derive(jwtSecret, "otp-pepper")
+                : pepper.getBytes(StandardCharsets.UTF_8);
+        this.pepperKey = new SecretKeySpec(key, ALGORITHM);
+    }
+
+    public String hashOtp(String otpCode) {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + encoder.encodeToString(salt) + "$" + encoder.encodeToString(mac(salt, otpCode));
+    }
+
+    public boolean matches(String otpCode, String otpHash) {
+        if (otpCode == null || otpHash == null) {
+            return false;
+        }
+
+        if (!otpHash.startsWith(PREFIX)) {
+            // Legacy row, hashed with BCrypt before the switch; expires within minutes
+            return passwordEncoder.matches(otpCode, otpHash);
+        }
+
+        String[] parts = otpHash.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 2) {
+            return false;
+        }
+
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] expected = decoder.decode(parts[1]);
+        byte[] actual = mac(decoder.decode(parts[0]), otpCode);
+
+        // Constant-time comparison
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private byte[] mac(byte[] salt, String otpCode) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(pepperKey);
+            mac.update(salt);
+            return mac.doFinal(otpCode.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
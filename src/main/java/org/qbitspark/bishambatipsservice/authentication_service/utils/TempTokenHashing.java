@@ -0,0 +1,28 @@
+package org.qbitspark.bishambatipsservice.authentication_service.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 of a temp token, as the raw 32-byte digest stored in token_hash. Shared by the temp token
+ * and OTP delivery services, which both look rows up by it.
+ */
+public final class TempTokenHashing {
+
+    // MessageDigest is not thread-safe; one instance per thread avoids a provider lookup per hash
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private TempTokenHashing() {
+    }
+
+    public static byte[] hash(String tempToken) {
+        return SHA_256.get().digest(tempToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
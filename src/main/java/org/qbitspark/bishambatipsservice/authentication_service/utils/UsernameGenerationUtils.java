@@ -17,30 +17,16 @@ public class UsernameGenerationUtils {
     private static final SecureRandom RANDOM = new SecureRandom();
 
     /**
-     * Generates a unique username from email
+     * Generates a candidate username from email
      * Format: emailPrefix-randomSuffix
      * Example: office@qbitspark.com → office-a1B2c3D
+     * <p>
+     * Not checked against the database: with 62^7 suffixes per prefix a clash is rare, and the
+     * unique constraint on user_name catches it when the account is inserted (registration then
+     * retries with a new candidate).
      */
-    public String generateUniqueUsernameFromEmail(String email) {
-        String baseUsername = extractUsernameFromEmail(email);
-        String uniqueUsername;
-        int attempts = 0;
-        int maxAttempts = 10;
-
-        do {
-            String suffix = generateRandomSuffix();
-            uniqueUsername = baseUsername + "-" + suffix;
-            attempts++;
-
-            if (attempts > maxAttempts) {
-                // Fallback: use longer suffix if too many collisions
-                suffix = generateRandomSuffix(SUFFIX_LENGTH + 2);
-                uniqueUsername = baseUsername + "-" + suffix;
-                break;
-            }
-        } while (accountRepo.existsByUserName(uniqueUsername));
-
-        return uniqueUsername;
+    public String generateUsernameFromEmail(String email) {
+        return extractUsernameFromEmail(email) + "-" + generateRandomSuffix(SUFFIX_LENGTH);
     }
 
     /**
@@ -120,10 +106,6 @@ public class UsernameGenerationUtils {
     /**
      * Generates random suffix of specified length
      */
-    private String generateRandomSuffix() {
-        return generateRandomSuffix(SUFFIX_LENGTH);
-    }
-
     private String generateRandomSuffix(int length) {
         StringBuilder suffix = new StringBuilder(length);
         for (int i = 0; i < length; i++) {
@@ -8,15 +8,12 @@ import org.qbitspark.bishambatipsservice.farmer_mng_service.payloads.FarmerRespo
 import org.qbitspark.bishambatipsservice.farmer_mng_service.repo.FarmerRepository;
 import org.qbitspark.bishambatipsservice.farmer_mng_service.service.FarmerService;
 import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
-import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
 import org.qbitspark.bishambatipsservice.sms_service.GlobeSmsService;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemNotFoundException;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.RandomExceptions;
+import org.qbitspark.bishambatipsservice.globesecurity.AuthenticatedAccountProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
@@ -31,7 +28,7 @@ import java.util.stream.Collectors;
 public class FarmerServiceImpl implements FarmerService {
 
     private final FarmerRepository farmerRepository;
-    private final AccountRepo accountRepo;
+    private final AuthenticatedAccountProvider authenticatedAccountProvider;
     private final GlobeSmsService globeSmsService;
 
     @Override
@@ -43,7 +40,7 @@ public class FarmerServiceImpl implements FarmerService {
         }
 
         // Get the current agent
-        AccountEntity agent = getAuthenticatedAccount();
+        AccountEntity agent = authenticatedAccountProvider.getAccount();
 
         String termsCode = generateTermsCode();
         LocalDateTime codeExpiresAt = LocalDateTime.now().plusMinutes(30);
@@ -91,10 +88,10 @@ public class FarmerServiceImpl implements FarmerService {
         FarmerEntity farmer = farmerRepository.findById(farmerId)
                 .orElseThrow(() -> new ItemNotFoundException("Farmer not found"));
 
-        AccountEntity currentUser = getAuthenticatedAccount();
+        AccountEntity currentUser = authenticatedAccountProvider.getAccount();
 
         // Check permissions
-        boolean isSuperAdmin = isCurrentUserAdmin();
+        boolean isSuperAdmin = authenticatedAccountProvider.isSuperAdmin();
         boolean isOwner = farmer.getAgent().getId().equals(currentUser.getId());
 
         if (!isSuperAdmin && !isOwner) {
@@ -132,10 +129,10 @@ public class FarmerServiceImpl implements FarmerService {
         FarmerEntity farmer = farmerRepository.findById(farmerId)
                 .orElseThrow(() -> new ItemNotFoundException("Farmer not found"));
 
-        AccountEntity currentUser = getAuthenticatedAccount();
+        AccountEntity currentUser = authenticatedAccountProvider.getAccount();
 
         // Check permissions
-        boolean isSuperAdmin = isCurrentUserAdmin();
+        boolean isSuperAdmin = authenticatedAccountProvider.isSuperAdmin();
         boolean isOwner = farmer.getAgent().getId().equals(currentUser.getId());
 
         if (!isSuperAdmin && !isOwner) {
@@ -175,10 +172,10 @@ public class FarmerServiceImpl implements FarmerService {
 
     @Override
     public List<FarmerResponse> getMyFarmers() throws ItemNotFoundException {
-        AccountEntity agent = getAuthenticatedAccount();
+        AccountEntity agent = authenticatedAccountProvider.getAccount();
         List<FarmerEntity> farmers = farmerRepository.findByAgent(agent);
 
-        boolean isAdmin = isCurrentUserAdmin();
+        boolean isAdmin = authenticatedAccountProvider.isSuperAdmin();
 
         return farmers.stream()
                 .map(farmer -> mapToFarmerResponse(farmer, isAdmin))
@@ -190,10 +187,10 @@ public class FarmerServiceImpl implements FarmerService {
         FarmerEntity farmer = farmerRepository.findById(farmerId)
                 .orElseThrow(() -> new ItemNotFoundException("Farmer not found"));
 
-        AccountEntity currentUser = getAuthenticatedAccount();
+        AccountEntity currentUser = authenticatedAccountProvider.getAccount();
 
         // Check permissions
-        boolean isSuperAdmin = isCurrentUserAdmin();
+        boolean isSuperAdmin = authenticatedAccountProvider.isSuperAdmin();
         boolean isOwner = farmer.getAgent().getId().equals(currentUser.getId());
 
         if (!isSuperAdmin && !isOwner) {
@@ -205,8 +202,8 @@ public class FarmerServiceImpl implements FarmerService {
 
     @Override
     public List<FarmerResponse> getAllFarmers() throws ItemNotFoundException, RandomExceptions {
-        AccountEntity currentUser = getAuthenticatedAccount();
-        boolean isAdmin = isCurrentUserAdmin();
+        AccountEntity currentUser = authenticatedAccountProvider.getAccount();
+        boolean isAdmin = authenticatedAccountProvider.isSuperAdmin();
 
         if (!isAdmin) {
             throw new RandomExceptions("Access denied: Only admins can view all farmers");
@@ -253,19 +250,4 @@ public class FarmerServiceImpl implements FarmerService {
                 .createdAt(farmer.getCreatedAt())
                 .build();
     }
-
-    private boolean isCurrentUserAdmin() throws ItemNotFoundException {
-        AccountEntity currentUser = getAuthenticatedAccount();
-        return currentUser.getRoles().stream()
-                .anyMatch(role -> "ROLE_SUPER_ADMIN".equals(role.getRoleName()));
-    }
-
-    private AccountEntity getAuthenticatedAccount() throws ItemNotFoundException {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String userName = userDetails.getUsername();
-
-        return accountRepo.findByUserName(userName)
-                .orElseThrow(() -> new ItemNotFoundException("User not found"));
-    }
 }
\ No newline at end of file
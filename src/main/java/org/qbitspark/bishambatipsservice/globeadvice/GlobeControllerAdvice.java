@@ -2,6 +2,7 @@ package org.qbitspark.bishambatipsservice.globeadvice;
 
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.*;
 import org.qbitspark.bishambatipsservice.globeresponsebody.GlobeFailureResponseBuilder;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -109,6 +110,12 @@ public class GlobeControllerAdvice {
         return ResponseEntity.status(response.getHttpStatus()).body(response);
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<GlobeFailureResponseBuilder> generateTooManyRequestsException(Exception exception) {
+        GlobeFailureResponseBuilder response = GlobeFailureResponseBuilder.error(exception.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+        return ResponseEntity.status(response.getHttpStatus()).body(response);
+    }
+
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<GlobeFailureResponseBuilder> handleAllExceptions(Exception exception) {
@@ -0,0 +1,7 @@
+package org.qbitspark.bishambatipsservice.globeadvice.exceptions;
+
+public class TooManyRequestsException extends Exception{
+    public TooManyRequestsException(String message){
+        super(message);
+    }
+}
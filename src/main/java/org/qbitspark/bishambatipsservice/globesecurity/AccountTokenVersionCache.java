@@ -0,0 +1,55 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Short-lived cache of each account's current token version, used by the stateless
+ * authentication path to reject tokens issued before a role change, lock or password reset.
+ * An account is re-read from the database at most once per TTL window; the cache is
+ * size-bounded, so a flood of distinct accounts cannot grow it without limit.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountTokenVersionCache {
+
+    private final AccountRepo accountRepo;
+
+    @Value("${app.jwt.token-version-ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${app.jwt.token-version-cache.max-size:10000}")
+    private long maxSize;
+
+    // Empty when the account is gone or locked
+    private Cache<UUID, Optional<Integer>> versions;
+
+    @PostConstruct
+    void initCache() {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public boolean isCurrent(UUID accountId, int tokenVersion) {
+        Optional<Integer> current = versions.get(accountId, accountRepo::findActiveTokenVersionById);
+        return current.isPresent() && current.get() == tokenVersion;
+    }
+
+    /**
+     * Drops the cached version so the next request re-reads it. Call after bumping an account's token version.
+     */
+    public void evict(UUID accountId) {
+        versions.invalidate(accountId);
+    }
+}
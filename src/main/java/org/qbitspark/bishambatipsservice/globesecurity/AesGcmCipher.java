@@ -0,0 +1,57 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * AES-256-GCM for small values kept at rest (signing keys, pending OTPs).
+ * Output: 12-byte random IV followed by ciphertext and 16-byte tag. The associated data
+ * binds a ciphertext to its row, so a value copied into another row does not decrypt.
+ */
+public class AesGcmCipher {
+
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SecretKeySpec key;
+
+    public AesGcmCipher(byte[] key) {
+        if (key.length != SecretKeys.KEY_LENGTH) {
+            throw new IllegalArgumentException("AES-256-GCM needs a 32-byte key");
+        }
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    public byte[] encrypt(byte[] plaintext, byte[] associatedData) {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(associatedData);
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return ByteBuffer.allocate(IV_LENGTH + ciphertext.length).put(iv).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM encryption failed", e);
+        }
+    }
+
+    public byte[] decrypt(byte[] sealed, byte[] associatedData) {
+        if (sealed == null || sealed.length <= IV_LENGTH) {
+            throw new IllegalArgumentException("Ciphertext is too short");
+        }
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+            cipher.updateAAD(associatedData);
+            return cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM decryption failed", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import lombok.RequiredArgsConstructor;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Resolves the authenticated {@link AccountEntity} at most once per HTTP request.
+ * Injected into singletons through a scoped proxy, so every service and controller
+ * taking part in the same request shares the one lookup.
+ */
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class AuthenticatedAccountProvider {
+
+    private final AccountRepo accountRepo;
+
+    private AccountEntity account;
+
+    public AccountEntity getAccount() throws ItemNotFoundException {
+        if (account == null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+            String userName = userDetails.getUsername();
+
+            account = accountRepo.findByUserName(userName)
+                    .orElseThrow(() -> new ItemNotFoundException("User not found"));
+        }
+        return account;
+    }
+
+    public boolean isSuperAdmin() throws ItemNotFoundException {
+        return getAccount().getRoles().stream()
+                .anyMatch(role -> RoleRegistry.ROLE_SUPER_ADMIN.equals(role.getRoleName()));
+    }
+}
@@ -6,22 +6,20 @@ import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemReadyExistException;
 import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-
-import java.util.Set;
-import java.util.stream.Collectors;
+import org.springframework.transaction.annotation.Transactional;
 
 @AllArgsConstructor
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final AccountRepo accountRepo;
+    private final RoleRegistry roleRegistry;
 
     @SneakyThrows
     @Override
@@ -30,15 +28,27 @@ public class CustomUserDetailsService implements UserDetailsService {
         AccountEntity user = accountRepo.findAccountEntitiesByUserName(username)
                 .orElseThrow(() -> new ItemReadyExistException("Invalid user token: Account does not exist."));
 
-        Set<GrantedAuthority> authorities =
-                user.getRoles()
-                        .stream()
-                        .map(role -> new SimpleGrantedAuthority(role.getRoleName()))
-                        .collect(Collectors.toSet());
-
         return new User(user.getUserName(),
                 user.getPassword(),
-                authorities);
+                roleRegistry.authoritiesFor(user.getRoles()));
     }
-}
 
+    /**
+     * Called by the authentication provider after a successful password login when the stored
+     * hash is un-prefixed or below the configured cost, with the password re-encoded at the current settings.
+     */
+    @SneakyThrows
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        AccountEntity account = accountRepo.findAccountEntitiesByUserName(user.getUsername())
+                .orElseThrow(() -> new ItemReadyExistException("Invalid user token: Account does not exist."));
+
+        account.setPassword(newPassword);
+        accountRepo.save(account);
+
+        return User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+}
@@ -5,22 +5,30 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.SneakyThrows;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.TokenInvalidException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 
+import java.util.Set;
+import java.util.stream.Collectors;
+
 
 public class JWTAuthFilter extends OncePerRequestFilter {
     @Autowired
     private  JWTProvider jwtProvider;
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserDetailsCache userDetailsCache;
+    @Autowired
+    private AccountTokenVersionCache tokenVersionCache;
 
     private final HandlerExceptionResolver handlerExceptionResolver;
 
@@ -37,10 +45,10 @@ public class JWTAuthFilter extends OncePerRequestFilter {
 
         try {
             String token = getTokenFromHeader(request);
-            // Validate specifically as an access token
-            if (StringUtils.hasText(token) && jwtProvider.validToken(token, "ACCESS")) {
-                String userName = jwtProvider.getUserName(token);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userName);
+            if (StringUtils.hasText(token)) {
+                // Validate specifically as an access token; signature is checked once per request
+                VerifiedTokenClaims claims = jwtProvider.verifyToken(token, "ACCESS");
+                UserDetails userDetails = resolveUserDetails(claims);
 
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(
@@ -60,6 +68,23 @@ public class JWTAuthFilter extends OncePerRequestFilter {
         }
     }
 
+    private UserDetails resolveUserDetails(VerifiedTokenClaims claims) throws TokenInvalidException {
+        if (!jwtProvider.isStatelessAuthorities() || !claims.hasEmbeddedAuthorities()) {
+            return userDetailsCache.loadUserByUsername(claims.getSubject());
+        }
+
+        // Stateless path: authorities come from the token, only the token version is checked
+        if (!tokenVersionCache.isCurrent(claims.getAccountId(), claims.getTokenVersion())) {
+            throw new TokenInvalidException("Token has been revoked");
+        }
+
+        Set<GrantedAuthority> authorities = claims.getRoles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toSet());
+
+        return new User(claims.getSubject(), "", authorities);
+    }
+
     private String getTokenFromHeader(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -6,16 +6,25 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
 
 @Component
+@RequiredArgsConstructor
 public class JWTProvider {
+
+    // kid of refresh tokens under the asymmetric key ring; they are signed with a key derived from the shared secret
+    static final String REFRESH_KEY_ID = "refresh";
+
     @Value("${app.jwt-secret}")
     private String secret_key;
     @Value("${app.jwt-expiration-milliseconds}")
@@ -27,30 +36,117 @@ public class JWTProvider {
     @Value("${jwt.temp.token.expiration:600000}")
     private int tempTokenExpirationMs;
 
+    // When enabled, access tokens carry roles, account id and token version so the filter can skip the account lookup
+    @Value("${app.jwt.stateless-authorities:false}")
+    private boolean statelessAuthorities;
+
+    // With the asymmetric key ring on, tokens without a kid (signed with the shared secret before the switch)
+    // are accepted only while this is true; turn it off once they have expired, so the secret alone can no
+    // longer mint a valid token
+    @Value("${app.jwt.accept-legacy-hmac:true}")
+    private boolean acceptLegacyHmac;
+
+    private final JwtKeyRing keyRing;
+
+    // Decoded once at startup; Key and JwtParser are immutable and safe to share across threads
+    private Key signingKey;
+    private Key refreshSigningKey;
+    private SignatureAlgorithm signatureAlgorithm;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void initSigningKey() {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret_key));
+        this.signatureAlgorithm = SignatureAlgorithm.forSigningKey(signingKey);
+        this.refreshSigningKey = Keys.hmacShaKeyFor(SecretKeys.derive(secret_key, "jwt-refresh-token"));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return verificationKey(header, claims);
+                    }
+                })
+                .build();
+    }
 
-    public String generateRefreshToken(Authentication authentication) {
+    /**
+     * Builder already configured with the active signing key: the asymmetric key ring (with a kid header)
+     * when enabled, otherwise the shared HMAC secret.
+     */
+    private JwtBuilder signedBuilder() {
+        if (keyRing.isAsymmetric()) {
+            JwtKeyRing.SigningKey current = keyRing.currentKey();
+            return Jwts.builder()
+                    .setHeaderParam(JwsHeader.KEY_ID, current.kid())
+                    .signWith(current.privateKey(), keyRing.getSignatureAlgorithm());
+        }
+        return Jwts.builder()
+                .signWith(signingKey, signatureAlgorithm);
+    }
+
+    /**
+     * Refresh tokens are only ever read by this service and are honoured only while their jti is stored,
+     * so under the key ring they are signed with their own HMAC key instead of a rotating ring key.
+     * That keeps the ring's retention down to the access and temp token lifetimes.
+     */
+    private JwtBuilder refreshTokenBuilder() {
+        if (keyRing.isAsymmetric()) {
+            return Jwts.builder()
+                    .setHeaderParam(JwsHeader.KEY_ID, REFRESH_KEY_ID)
+                    .signWith(refreshSigningKey, SignatureAlgorithm.HS256);
+        }
+        return signedBuilder();
+    }
+
+    private Key verificationKey(JwsHeader<?> header, Claims claims) {
+        String kid = header.getKeyId();
+        if (REFRESH_KEY_ID.equals(kid)) {
+            if (!"REFRESH".equals(claims.get("tokenType", String.class))) {
+                throw new SignatureException("Refresh signing key used for another token type");
+            }
+            return refreshSigningKey;
+        }
+        if (kid == null) {
+            // Tokens without a kid were signed with the shared secret
+            if (keyRing.isAsymmetric() && !acceptLegacyHmac) {
+                throw new SignatureException("Tokens signed with the shared secret are no longer accepted");
+            }
+            return signingKey;
+        }
+        return keyRing.publicKey(kid)
+                .orElseThrow(() -> new SignatureException("Unknown signing key id"));
+    }
+
+    /**
+     * Refresh token carrying its own id (jti), so it can be tracked, rotated and revoked individually,
+     * and its family id, so a replay can revoke the family without looking the token up first.
+     */
+    public String generateRefreshToken(Authentication authentication, String tokenId, UUID familyId) {
         String userName = authentication.getName();
 
         // Set expiration to 1 year
         long oneYearInMillis = refreshTokenExpirationDays * 24 * 60 * 60 * 1000; // 365 days in milliseconds
         Date expirationDate = new Date(new Date().getTime() + oneYearInMillis);
 
-        return Jwts.builder()
+        return refreshTokenBuilder()
+                .setId(tokenId)
                 .setSubject(userName)
+                .claim("fam", familyId.toString())
                 .setIssuedAt(new Date())
                 .setExpiration(expirationDate)
                 .claim("tokenType", "REFRESH")
-                .signWith(the_key())
                 .compact();
     }
 
+    public Long getRefreshTokenExpirationDays() {
+        return refreshTokenExpirationDays;
+    }
+
 
 
     public String getUserName(String token) {
 
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(the_key())
-                .build()
+        Claims claims = jwtParser
                 .parseClaimsJws(token)
                 .getBody();
 
@@ -58,27 +154,58 @@ public class JWTProvider {
     }
 
     public String generateAccessToken(Authentication authentication) {
+        return accessTokenBuilder(authentication).compact();
+    }
+
+    /**
+     * Access token for a known account. In stateless-authorities mode the role names, account id
+     * and current token version are embedded so {@link JWTAuthFilter} can authenticate from the claims alone.
+     */
+    public String generateAccessToken(Authentication authentication, UUID accountId, Integer tokenVersion) {
+        JwtBuilder builder = accessTokenBuilder(authentication);
+
+        if (statelessAuthorities) {
+            builder.claim("roles", authentication.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .toList())
+                    .claim("uid", accountId.toString())
+                    .claim("ver", tokenVersion != null ? tokenVersion : 0);
+        }
+
+        return builder.compact();
+    }
+
+    private JwtBuilder accessTokenBuilder(Authentication authentication) {
         String userName = authentication.getName();
 
         Date currentDate = new Date();
         Date expirationDate = new Date(currentDate.getTime() + accessTokenExpirationMillis);
 
-        return Jwts.builder()
+        return signedBuilder()
                 .setSubject(userName)
                 .setIssuedAt(currentDate)
                 .setExpiration(expirationDate)
-                .signWith(the_key())
-                .claim("tokenType", "ACCESS")
-                .compact();
+                .claim("tokenType", "ACCESS");
+    }
+
+    public boolean isStatelessAuthorities() {
+        return statelessAuthorities;
     }
 
 
     public boolean validToken(String token, String expectedTokenType) throws Exception {
+        verifyToken(token, expectedTokenType);
+        return true;
+    }
+
+    /**
+     * Parses and verifies the token once and returns its claims, so callers that need both
+     * validation and the subject do not pay for the signature check twice.
+     */
+    public VerifiedTokenClaims verifyToken(String token, String expectedTokenType) throws Exception {
 
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(the_key())
-                    .build()
+            Claims claims = jwtParser
                     .parseClaimsJws(token)
                     .getBody();
 
@@ -86,7 +213,7 @@ public class JWTProvider {
             if (!expectedTokenType.equals(tokenType)) {
                 throw new TokenInvalidSignatureException("Invalid token");
             }
-            return true;
+            return VerifiedTokenClaims.from(claims);
         } catch (MalformedJwtException malformedJwtException) {
             throw new TokenInvalidException("Invalid token");
         } catch (ExpiredJwtException expiredJwtException) {
@@ -106,20 +233,18 @@ public class JWTProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + tempTokenExpirationMs);
 
-        return Jwts.builder()
+        return signedBuilder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .claim("tokenType", "TEMP")
-                .signWith(the_key())
                 .compact();
     }
 
     public boolean validateTempToken(String token, String expectedPurpose) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(the_key())
-                    .build()
+            Claims claims = jwtParser
                     .parseClaimsJws(token)
                     .getBody();
 
@@ -146,9 +271,7 @@ public class JWTProvider {
     }
 
     public Claims getTempTokenClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(the_key())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -158,12 +281,6 @@ public class JWTProvider {
         return claims.get("userIdentifier", String.class);
     }
 
-    private Key the_key() {
-        return Keys.hmacShaKeyFor(
-                Decoders.BASE64.decode(secret_key)
-        );
-    }
-
     public String getPurposeFromTempToken(String token) {
         Claims claims = getTempTokenClaims(token);
         return claims.get("purpose", String.class);
@@ -0,0 +1,271 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.JwtSigningKeyEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.JwtSigningKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Ring of asymmetric signing keys, identified by {@code kid} and shared by every node through
+ * jwt_signing_key_table. Each node reloads the table periodically; one node at a time (advisory
+ * lock) creates the next key when the current one is due for rotation.
+ * <p>
+ * A new key is published (JWKS, verification) two reload intervals before it starts signing,
+ * so every node knows it before any token carries its kid. A superseded key is kept until the
+ * access and temp tokens it could have signed have expired; refresh tokens are tracked by jti
+ * and signed outside the ring (see {@link JWTProvider}).
+ * <p>
+ * Only active when {@code app.jwt.signing-algorithm} is an asymmetric algorithm (ES256);
+ * in the default HS256 mode the ring stays empty, never touches the database, and the shared secret is used.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtKeyRing {
+
+    // Arbitrary application-wide key for pg_try_advisory_xact_lock
+    private static final long ROTATION_LOCK_KEY = 0x6a77_745f_6b65_7973L;
+
+    private static final int BOOTSTRAP_ATTEMPTS = 10;
+
+    private final JwtSigningKeyRepository signingKeyRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.jwt.signing-algorithm:HS256}")
+    private SignatureAlgorithm signatureAlgorithm;
+
+    // Private keys are encrypted at rest with a key derived from this secret
+    @Value("${app.jwt.key-encryption-secret:${app.jwt-secret:}}")
+    private String keyEncryptionSecret;
+
+    @Value("${app.jwt.key-rotation-interval-ms:86400000}")
+    private long rotationIntervalMillis;
+
+    @Value("${app.jwt.key-refresh-interval-ms:60000}")
+    private long refreshIntervalMillis;
+
+    // Lifetimes of the tokens signed by the ring; the longer one decides how long a superseded key stays verifiable
+    @Value("${app.jwt-expiration-milliseconds:3600000}")
+    private long accessTokenExpirationMillis;
+
+    @Value("${jwt.temp.token.expiration:600000}")
+    private long tempTokenExpirationMillis;
+
+    private TransactionTemplate transactionTemplate;
+    private AesGcmCipher keyCipher;
+
+    // Sorted by activation, newest first; includes published keys that are not signing yet
+    private volatile List<SigningKey> keys = List.of();
+
+    @PostConstruct
+    void initKeys() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        if (signatureAlgorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalStateException("Unsupported asymmetric JWT algorithm: " + signatureAlgorithm);
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        keyCipher = new AesGcmCipher(SecretKeys.derive(keyEncryptionSecret, "jwt-signing-key"));
+
+        // On first start another node may be creating the initial key; wait for it to commit
+        for (int attempt = 1; activeKey().isEmpty(); attempt++) {
+            sync();
+            if (activeKey().isEmpty()) {
+                if (attempt == BOOTSTRAP_ATTEMPTS) {
+                    throw new IllegalStateException("No active JWT signing key in jwt_signing_key_table");
+                }
+                sleep(1000);
+            }
+        }
+    }
+
+    public boolean isAsymmetric() {
+        return !signatureAlgorithm.isHmac();
+    }
+
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.key-refresh-interval-ms:60000}",
+            initialDelayString = "${app.jwt.key-refresh-interval-ms:60000}")
+    public void scheduledSync() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            // Keep signing with the keys already loaded; the next run retries
+            log.error("JWT signing key sync failed", e);
+        }
+    }
+
+    /**
+     * Rotates when the newest key is due (only on the node holding the lock), then reloads the ring.
+     */
+    public void sync() {
+        transactionTemplate.executeWithoutResult(status -> rotateIfDue());
+        keys = signingKeyRepository.findByAlgorithmOrderByActivatesAtDesc(signatureAlgorithm.getValue()).stream()
+                .map(this::toSigningKey)
+                .toList();
+    }
+
+    private void rotateIfDue() {
+        if (!signingKeyRepository.tryAdvisoryXactLock(ROTATION_LOCK_KEY)) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<JwtSigningKeyEntity> stored =
+                signingKeyRepository.findByAlgorithmOrderByActivatesAtDesc(signatureAlgorithm.getValue());
+
+        if (stored.isEmpty()) {
+            // Nothing can verify yet, so the first key signs immediately
+            signingKeyRepository.save(newKey(now, now));
+            return;
+        }
+
+        if (!stored.get(0).getCreatedAt().plus(Duration.ofMillis(rotationIntervalMillis)).isAfter(now)) {
+            JwtSigningKeyEntity next = signingKeyRepository.save(
+                    newKey(now, now.plus(Duration.ofMillis(2 * refreshIntervalMillis))));
+            log.info("JWT signing key {} published, signs from {}", next.getKid(), next.getActivatesAt());
+        }
+
+        // A key stops signing when its successor activates; drop it once its tokens have expired
+        LocalDateTime retiredBefore = now.minus(retention());
+        for (int i = 1; i < stored.size(); i++) {
+            LocalDateTime retiredAt = stored.get(i - 1).getActivatesAt();
+            if (retiredAt.isBefore(retiredBefore)) {
+                signingKeyRepository.delete(stored.get(i));
+                log.info("JWT signing key {} removed, retired at {}", stored.get(i).getKid(), retiredAt);
+            }
+        }
+    }
+
+    private Duration retention() {
+        long longest = Math.max(accessTokenExpirationMillis, tempTokenExpirationMillis);
+        // Slack for nodes that picked up the successor one reload late
+        return Duration.ofMillis(longest + refreshIntervalMillis);
+    }
+
+    private JwtSigningKeyEntity newKey(LocalDateTime createdAt, LocalDateTime activatesAt) {
+        KeyPair keyPair = Keys.keyPairFor(signatureAlgorithm);
+        String kid = UUID.randomUUID().toString();
+
+        return new JwtSigningKeyEntity(
+                kid,
+                signatureAlgorithm.getValue(),
+                keyPair.getPublic().getEncoded(),
+                keyCipher.encrypt(keyPair.getPrivate().getEncoded(), kid.getBytes(StandardCharsets.UTF_8)),
+                createdAt,
+                activatesAt
+        );
+    }
+
+    private SigningKey toSigningKey(JwtSigningKeyEntity entity) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(entity.getPublicKey()));
+            byte[] pkcs8 = keyCipher.decrypt(entity.getPrivateKey(), entity.getKid().getBytes(StandardCharsets.UTF_8));
+            PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(pkcs8));
+            return new SigningKey(entity.getKid(), new KeyPair(publicKey, privateKey), entity.getCreatedAt(), entity.getActivatesAt());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decode JWT signing key " + entity.getKid(), e);
+        }
+    }
+
+    private Optional<SigningKey> activeKey() {
+        LocalDateTime now = LocalDateTime.now();
+        for (SigningKey key : keys) {
+            if (!key.activatesAt().isAfter(now)) {
+                return Optional.of(key);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public SigningKey currentKey() {
+        return activeKey().orElseThrow(() -> new IllegalStateException("No active JWT signing key"));
+    }
+
+    public Optional<PublicKey> publicKey(String kid) {
+        for (SigningKey key : keys) {
+            if (key.kid().equals(kid)) {
+                return Optional.of(key.keyPair().getPublic());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Public keys in JWK Set format (RFC 7517), including the next key before it starts signing.
+     */
+    public Map<String, Object> jwks() {
+        List<Map<String, Object>> jwkList = new ArrayList<>();
+
+        for (SigningKey key : keys) {
+            ECPublicKey publicKey = (ECPublicKey) key.keyPair().getPublic();
+
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("use", "sig");
+            jwk.put("alg", signatureAlgorithm.getValue());
+            jwk.put("kid", key.kid());
+            jwk.put("x", base64UrlCoordinate(publicKey.getW().getAffineX()));
+            jwk.put("y", base64UrlCoordinate(publicKey.getW().getAffineY()));
+            jwkList.add(jwk);
+        }
+
+        return Map.of("keys", jwkList);
+    }
+
+    private String base64UrlCoordinate(BigInteger coordinate) {
+        // P-256 coordinates are 32 bytes, unsigned and left-padded
+        byte[] raw = coordinate.toByteArray();
+        byte[] fixed = new byte[32];
+        int copy = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - copy, fixed, 32 - copy, copy);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the initial JWT signing key", e);
+        }
+    }
+
+    public record SigningKey(String kid, KeyPair keyPair, LocalDateTime createdAt, LocalDateTime activatesAt) {
+
+        public PrivateKey privateKey() {
+            return keyPair.getPrivate();
+        }
+    }
+}
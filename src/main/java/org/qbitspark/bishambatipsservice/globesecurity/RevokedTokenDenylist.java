@@ -0,0 +1,150 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory denylist of refresh-token ids (jti) that can no longer be exchanged: revoked, or
+ * already used in a rotation. Any id not in the list is only ever consumed by the conditional
+ * update in RefreshTokenServiceImpl, so the list decides rejection without a query.
+ * A Bloom filter answers the common "not revoked" case without touching the exact set;
+ * positives are confirmed against a hash set, so there are no false rejections.
+ * <p>
+ * Kept in sync incrementally by polling for recently revoked ids, and rebuilt in full
+ * periodically so expired ids drop out of the filter.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RevokedTokenDenylist {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${app.jwt.refresh.denylist.expected-entries:100000}")
+    private int expectedEntries;
+
+    // Overlap between polls so revocations committed during a poll are not missed
+    private static final long SYNC_OVERLAP_SECONDS = 5;
+
+    private volatile Snapshot snapshot;
+    private volatile LocalDateTime lastSync;
+
+    @PostConstruct
+    void initDenylist() {
+        rebuild();
+    }
+
+    public boolean isRevoked(String jti) {
+        Snapshot current = snapshot;
+        return current.filter.mightContain(jti) && current.revoked.contains(jti);
+    }
+
+    public void addAll(Collection<String> jtis) {
+        Snapshot current = snapshot;
+        for (String jti : jtis) {
+            current.filter.put(jti);
+            current.revoked.add(jti);
+        }
+    }
+
+    /**
+     * Pulls ids used or revoked since the last poll, including ones from other nodes.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.refresh.denylist.sync-interval-ms:5000}")
+    public void sync() {
+        LocalDateTime since = lastSync.minusSeconds(SYNC_OVERLAP_SECONDS);
+        LocalDateTime now = LocalDateTime.now();
+        addAll(refreshTokenRepository.findJtisUnusableSince(since));
+        lastSync = now;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.refresh.denylist.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.jwt.refresh.denylist.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> jtis = refreshTokenRepository.findUnusableUnexpiredJtis(now);
+
+        Snapshot rebuilt = new Snapshot(new BloomFilter(Math.max(expectedEntries, jtis.size() * 2)),
+                ConcurrentHashMap.newKeySet());
+        for (String jti : jtis) {
+            rebuilt.filter.put(jti);
+            rebuilt.revoked.add(jti);
+        }
+
+        snapshot = rebuilt;
+        lastSync = now;
+        log.info("Refresh token denylist rebuilt with {} used or revoked ids", jtis.size());
+    }
+
+    private record Snapshot(BloomFilter filter, Set<String> revoked) {
+    }
+
+    /**
+     * Lock-free Bloom filter sized for a 1% false-positive rate, using double hashing
+     * (Kirsch-Mitzenmacher) over two independent 32-bit string hashes.
+     */
+    static final class BloomFilter {
+
+        private static final int HASH_FUNCTIONS = 7;
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+
+        BloomFilter(int expectedEntries) {
+            // m = -n * ln(0.01) / (ln 2)^2 ~= 9.6 bits per entry
+            long requiredBits = Math.max(64, (long) Math.ceil(expectedEntries * 9.6));
+            this.bits = new AtomicLongArray((int) ((requiredBits + 63) / 64));
+            this.bitCount = (long) bits.length() * 64;
+        }
+
+        void put(String value) {
+            int h1 = value.hashCode();
+            int h2 = fnv1a(value);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            int h1 = value.hashCode();
+            int h2 = fnv1a(value);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int fnv1a(String value) {
+            int hash = 0x811c9dc5;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x01000193;
+            }
+            return hash | 1;
+        }
+    }
+}
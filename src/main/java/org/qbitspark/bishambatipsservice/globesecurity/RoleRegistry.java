@@ -0,0 +1,92 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.Roles;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.RolesRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of roles_table, keyed by name and id. Roles are seeded at startup and
+ * rarely change, so lookups and authority mapping are served from memory; the snapshot is
+ * reloaded after seeding and periodically to pick up roles added elsewhere.
+ * <p>
+ * Cached roles are detached. To attach a role to an account use {@link #getReference}, which
+ * returns a managed proxy without querying.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoleRegistry {
+
+    public static final String ROLE_SUPER_ADMIN = "ROLE_SUPER_ADMIN";
+    public static final String ROLE_USER = "ROLE_USER";
+    public static final String ROLE_AGENT = "ROLE_AGENT";
+
+    private final RolesRepository rolesRepository;
+
+    private volatile Snapshot snapshot = Snapshot.of(List.of());
+
+    @PostConstruct
+    void initRegistry() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.roles.refresh-interval-ms:300000}",
+            initialDelayString = "${app.roles.refresh-interval-ms:300000}")
+    public void refresh() {
+        snapshot = Snapshot.of(rolesRepository.findAll());
+        log.debug("Role registry loaded {} roles", snapshot.all().size());
+    }
+
+    public Optional<Roles> findByName(String roleName) {
+        return Optional.ofNullable(snapshot.byName().get(roleName));
+    }
+
+    public Optional<Roles> findById(UUID roleId) {
+        return Optional.ofNullable(snapshot.byId().get(roleId));
+    }
+
+    public List<Roles> getAll() {
+        return snapshot.all();
+    }
+
+    /**
+     * Managed reference to a known role, for use inside a transaction
+     */
+    public Roles getReference(Roles role) {
+        return rolesRepository.getReferenceById(role.getRoleId());
+    }
+
+    public List<GrantedAuthority> authoritiesFor(Collection<Roles> roles) {
+        Map<String, GrantedAuthority> authorities = snapshot.authorities();
+        List<GrantedAuthority> granted = new ArrayList<>(roles.size());
+        for (Roles role : roles) {
+            GrantedAuthority authority = authorities.get(role.getRoleName());
+            granted.add(authority != null ? authority : new SimpleGrantedAuthority(role.getRoleName()));
+        }
+        return granted;
+    }
+
+    private record Snapshot(Map<String, Roles> byName, Map<UUID, Roles> byId, List<Roles> all,
+                            Map<String, GrantedAuthority> authorities) {
+
+        static Snapshot of(List<Roles> roles) {
+            Map<String, Roles> byName = new HashMap<>();
+            Map<UUID, Roles> byId = new HashMap<>();
+            Map<String, GrantedAuthority> authorities = new HashMap<>();
+            for (Roles role : roles) {
+                byName.put(role.getRoleName(), role);
+                byId.put(role.getRoleId(), role);
+                authorities.put(role.getRoleName(), new SimpleGrantedAuthority(role.getRoleName()));
+            }
+            return new Snapshot(Map.copyOf(byName), Map.copyOf(byId), List.copyOf(roles), Map.copyOf(authorities));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Derives purpose-specific keys from a configured secret, so one secret never keys two
+ * different algorithms directly. The derived key is HMAC-SHA256(secret, label), i.e. the
+ * HKDF-Expand step with a single block and a fixed label per purpose.
+ */
+public final class SecretKeys {
+
+    public static final int KEY_LENGTH = 32;
+
+    private SecretKeys() {
+    }
+
+    public static byte[] derive(String secret, String label) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("Cannot derive '" + label + "' key from an empty secret");
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            mac.update(label.getBytes(StandardCharsets.UTF_8));
+            return mac.doFinal(new byte[]{1});
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Records how long each hash and verify takes, published as {@code security.password.hash}
+ * tagged with the algorithm, cost and operation. Compare against the per-login latency budget
+ * when tuning {@code app.security.password.bcrypt-strength}.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry, String algorithm, int cost) {
+        this.delegate = delegate;
+        this.encodeTimer = timer(meterRegistry, algorithm, cost, "encode");
+        this.matchesTimer = timer(meterRegistry, algorithm, cost, "matches");
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String algorithm, int cost, String operation) {
+        return Timer.builder("security.password.hash")
+                .description("Time spent hashing or verifying a password")
+                .tag("algorithm", algorithm)
+                .tag("cost", String.valueOf(cost))
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return Boolean.TRUE.equals(matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
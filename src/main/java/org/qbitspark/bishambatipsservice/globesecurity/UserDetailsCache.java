@@ -0,0 +1,66 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Caching decorator around {@link CustomUserDetailsService} for the JWT filter.
+ * Size-bounded (Caffeine W-TinyLFU) with a per-entry TTL; hit/miss/eviction counters are
+ * published to actuator as the "userDetails" cache (cache.gets, cache.evictions, cache.size).
+ * <p>
+ * Deliberately not a second UserDetailsService bean: password login keeps going through the
+ * uncached service, so a password change is never masked by a stale entry.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDetailsCache {
+
+    private final CustomUserDetailsService customUserDetailsService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.security.user-details-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.user-details-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.security.user-details-cache.ttl-seconds:120}")
+    private long ttlSeconds;
+
+    private Cache<String, UserDetails> cache;
+
+    @PostConstruct
+    void initCache() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    public UserDetails loadUserByUsername(String username) {
+        if (!enabled) {
+            return customUserDetailsService.loadUserByUsername(username);
+        }
+        return cache.get(username, customUserDetailsService::loadUserByUsername);
+    }
+
+    /**
+     * Drops the cached principal so the next request reloads roles and account state.
+     */
+    public void evict(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+}
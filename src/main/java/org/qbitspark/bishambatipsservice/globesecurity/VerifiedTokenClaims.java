@@ -0,0 +1,56 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import io.jsonwebtoken.Claims;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of a token whose signature, expiry and type have already been verified.
+ * Produced once per request by {@link JWTProvider#verifyToken(String, String)}.
+ */
+@Value
+public class VerifiedTokenClaims {
+
+    String tokenId;
+    String subject;
+    String tokenType;
+    Instant expiresAt;
+    Set<String> roles;
+    UUID accountId;
+    Integer tokenVersion;
+    UUID familyId;  // Refresh tokens only
+
+    /**
+     * True when the token was minted in stateless-authorities mode and carries everything
+     * needed to build the principal without loading the account.
+     */
+    public boolean hasEmbeddedAuthorities() {
+        return accountId != null && tokenVersion != null && !roles.isEmpty();
+    }
+
+    static VerifiedTokenClaims from(Claims claims) {
+        Object rawRoles = claims.get("roles");
+        Set<String> roles = (rawRoles instanceof Collection<?> collection)
+                ? collection.stream().map(String::valueOf).collect(Collectors.toUnmodifiableSet())
+                : Set.of();
+
+        String uid = claims.get("uid", String.class);
+        String fam = claims.get("fam", String.class);
+
+        return new VerifiedTokenClaims(
+                claims.getId(),
+                claims.getSubject(),
+                claims.get("tokenType", String.class),
+                claims.getExpiration().toInstant(),
+                roles,
+                uid != null ? UUID.fromString(uid) : null,
+                claims.get("ver", Integer.class),
+                fam != null ? UUID.fromString(fam) : null
+        );
+    }
+}
@@ -1,10 +1,16 @@
 package org.qbitspark.bishambatipsservice.globesecurity.configuration;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.qbitspark.bishambatipsservice.globesecurity.JWTAuthFilter;
+import org.qbitspark.bishambatipsservice.globesecurity.TimedPasswordEncoder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.Customizer;
@@ -14,11 +20,15 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.web.filter.ForwardedHeaderFilter;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 
+import java.util.Map;
+
 @RequiredArgsConstructor
 @Configuration
 @EnableMethodSecurity
@@ -29,14 +39,37 @@ public class SecurityConfiguration {
     @Qualifier("handlerExceptionResolver")
     private HandlerExceptionResolver exceptionResolver;
 
+    // BCrypt log rounds for new hashes; existing hashes at a lower cost are rehashed on next login
+    @Value("${app.security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
     @Bean
     public JWTAuthFilter jwtAuthenticationFilter() {
         return new JWTAuthFilter(exceptionResolver);
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        PasswordEncoder bcrypt = new TimedPasswordEncoder(
+                new BCryptPasswordEncoder(bcryptStrength), meterRegistry, "bcrypt", bcryptStrength);
+
+        // New hashes are stored as "{bcrypt}$2a$..."; legacy un-prefixed hashes still verify
+        // and are flagged for upgrade, so the login path rewrites them with the prefix and current cost
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    // Rate-limit keys use getRemoteAddr(), which is the proxy's address unless X-Forwarded-For/Forwarded
+    // is applied first. Trusting those headers is only safe when the app is reachable solely through a proxy
+    // that overwrites them, otherwise clients can pick their own address and sidestep the per-IP limits,
+    // so it is opt-in: the "proxied" profile sets app.security.trust-forwarded-headers=true.
+    @Bean
+    @ConditionalOnProperty(name = "app.security.trust-forwarded-headers", havingValue = "true")
+    public FilterRegistrationBean<ForwardedHeaderFilter> forwardedHeaderFilter() {
+        FilterRegistrationBean<ForwardedHeaderFilter> registration = new FilterRegistrationBean<>(new ForwardedHeaderFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
     }
 
     @Bean
@@ -0,0 +1,95 @@
+package org.qbitspark.bishambatipsservice.globesecurity.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Front-door limits for the unauthenticated auth endpoints. Each call is checked per client IP
+ * and per user identifier, for the given action, before any database work is done (resend OTP
+ * needs one token lookup to learn the identifier, so only its per-IP check comes first);
+ * the OTP rate limits in TempTokenServiceImpl stay in place behind it.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthRateLimiter {
+
+    private static final String LOGIN = "login";
+    private static final String RESEND_OTP = "resend-otp";
+    private static final String PASSWORD_RESET = "psw-reset";
+
+    private final RateLimiter rateLimiter;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.window-seconds:300}")
+    private long windowSeconds;
+
+    @Value("${app.rate-limit.login.per-identifier:10}")
+    private int loginPerIdentifier;
+
+    @Value("${app.rate-limit.login.per-ip:50}")
+    private int loginPerIp;
+
+    @Value("${app.rate-limit.resend-otp.per-identifier:5}")
+    private int resendPerIdentifier;
+
+    @Value("${app.rate-limit.resend-otp.per-ip:30}")
+    private int resendPerIp;
+
+    @Value("${app.rate-limit.psw-reset.per-identifier:3}")
+    private int passwordResetPerIdentifier;
+
+    @Value("${app.rate-limit.psw-reset.per-ip:20}")
+    private int passwordResetPerIp;
+
+    public void checkLogin(String identifier, String clientIp) throws TooManyRequestsException {
+        check(LOGIN, identifier, loginPerIdentifier, clientIp, loginPerIp);
+    }
+
+    // Resend is split: the identifier comes from a temp token lookup, which the per-IP check guards
+    public void checkResendOtpFromIp(String clientIp) throws TooManyRequestsException {
+        if (enabled) {
+            checkIp(RESEND_OTP, clientIp, resendPerIp, Duration.ofSeconds(windowSeconds));
+        }
+    }
+
+    public void checkResendOtpFor(String identifier) throws TooManyRequestsException {
+        if (enabled) {
+            checkIdentifier(RESEND_OTP, identifier, resendPerIdentifier, Duration.ofSeconds(windowSeconds));
+        }
+    }
+
+    public void checkPasswordReset(String email, String clientIp) throws TooManyRequestsException {
+        check(PASSWORD_RESET, email, passwordResetPerIdentifier, clientIp, passwordResetPerIp);
+    }
+
+    private void check(String action, String identifier, int identifierLimit,
+                       String clientIp, int ipLimit) throws TooManyRequestsException {
+        if (!enabled) {
+            return;
+        }
+
+        Duration window = Duration.ofSeconds(windowSeconds);
+        checkIp(action, clientIp, ipLimit, window);
+        checkIdentifier(action, identifier, identifierLimit, window);
+    }
+
+    private void checkIp(String action, String clientIp, int limit, Duration window) throws TooManyRequestsException {
+        if (!rateLimiter.tryAcquire(action + ":ip:" + clientIp, limit, window)) {
+            throw new TooManyRequestsException("Too many requests from this address. Please wait before trying again.");
+        }
+    }
+
+    private void checkIdentifier(String action, String identifier, int limit, Duration window) throws TooManyRequestsException {
+        if (identifier != null
+                && !rateLimiter.tryAcquire(action + ":id:" + identifier.trim().toLowerCase(Locale.ROOT), limit, window)) {
+            throw new TooManyRequestsException("Too many requests for this account. Please wait before trying again.");
+        }
+    }
+}
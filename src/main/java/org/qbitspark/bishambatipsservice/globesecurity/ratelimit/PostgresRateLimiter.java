@@ -0,0 +1,71 @@
+package org.qbitspark.bishambatipsservice.globesecurity.ratelimit;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Shared sliding-window counter for multi-node deployments, kept in an UNLOGGED Postgres table
+ * (no WAL, so writes are cheap; counters are lost on a crash, which only resets the windows).
+ * Each hit is a single upsert on the (key, window) primary key.
+ * <p>
+ * Rejected hits are counted too, so a client that keeps hammering stays limited.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "postgres")
+public class PostgresRateLimiter implements RateLimiter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void createCounterTable() {
+        jdbcTemplate.execute("""
+                CREATE UNLOGGED TABLE IF NOT EXISTS rate_limit_counter (
+                    limit_key    varchar(255) NOT NULL,
+                    window_index bigint       NOT NULL,
+                    hits         integer      NOT NULL,
+                    expires_at   bigint       NOT NULL,
+                    PRIMARY KEY (limit_key, window_index)
+                )""");
+        log.info("Rate limiter using shared table rate_limit_counter");
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int limit, Duration window) {
+        long windowMillis = window.toMillis();
+        long now = System.currentTimeMillis();
+        long index = now / windowMillis;
+        double previousWeight = 1.0 - (double) (now - index * windowMillis) / windowMillis;
+
+        // Current window is incremented and read back together with the previous window's count
+        Integer[] hits = jdbcTemplate.queryForObject("""
+                        WITH hit AS (
+                            INSERT INTO rate_limit_counter (limit_key, window_index, hits, expires_at)
+                            VALUES (?, ?, 1, ?)
+                            ON CONFLICT (limit_key, window_index)
+                            DO UPDATE SET hits = rate_limit_counter.hits + 1
+                            RETURNING hits
+                        )
+                        SELECT (SELECT hits FROM hit),
+                               COALESCE((SELECT hits FROM rate_limit_counter
+                                         WHERE limit_key = ? AND window_index = ?), 0)""",
+                (rs, rowNum) -> new Integer[]{rs.getInt(1), rs.getInt(2)},
+                key, index, (index + 2) * windowMillis, key, index - 1);
+
+        // The current count already includes this hit
+        return hits[1] * previousWeight + hits[0] <= limit;
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void evictExpiredWindows() {
+        jdbcTemplate.update("DELETE FROM rate_limit_counter WHERE expires_at < ?", System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,19 @@
+package org.qbitspark.bishambatipsservice.globesecurity.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Sliding-window request limiter. Implementations decide where the counters live:
+ * {@link SlidingWindowRateLimiter} in memory (default, per node) or
+ * {@link PostgresRateLimiter} in a shared UNLOGGED table (app.rate-limit.store=postgres).
+ */
+public interface RateLimiter {
+
+    /**
+     * Records a hit for the key and reports whether it is within the limit. Rejected hits are
+     * recorded too, so a client that keeps retrying while limited stays limited until it backs off.
+     *
+     * @return false when this hit takes the key over {@code limit} hits in the trailing {@code window}
+     */
+    boolean tryAcquire(String key, int limit, Duration window);
+}
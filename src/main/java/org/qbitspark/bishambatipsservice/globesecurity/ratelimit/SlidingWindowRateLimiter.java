@@ -0,0 +1,87 @@
+package org.qbitspark.bishambatipsservice.globesecurity.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory sliding-window counter. Each key keeps the hit counts of the current and the previous
+ * fixed window; the trailing-window estimate weights the previous count by how much of it still overlaps.
+ * <p>
+ * Counters are updated with a CAS loop on an immutable per-key state, so concurrent requests never block;
+ * the map itself is lock-striped. Every hit is counted, rejected or not. Limits are per node.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class SlidingWindowRateLimiter implements RateLimiter {
+
+    private final Map<String, AtomicReference<Window>> windows = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public SlidingWindowRateLimiter() {
+        this(System::currentTimeMillis);
+    }
+
+    SlidingWindowRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int limit, Duration window) {
+        long windowMillis = window.toMillis();
+        long now = clock.getAsLong();
+        long index = now / windowMillis;
+        double previousWeight = 1.0 - (double) (now - index * windowMillis) / windowMillis;
+
+        AtomicReference<Window> state = windows.computeIfAbsent(key,
+                k -> new AtomicReference<>(new Window(index, 0, 0, windowMillis)));
+
+        while (true) {
+            Window current = state.get();
+            Window next = current.rollTo(index).increment();
+
+            // Rejected hits are counted as well, like PostgresRateLimiter
+            if (state.compareAndSet(current, next)) {
+                return next.previous() * previousWeight + next.current() <= limit;
+            }
+        }
+    }
+
+    /**
+     * Drops keys with no hits in the last two windows. A request racing with the sweep may lose
+     * one hit, which only ever errs on the side of letting a request through.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdleKeys() {
+        long now = clock.getAsLong();
+        windows.values().removeIf(state -> {
+            Window window = state.get();
+            return now / window.windowMillis() > window.index() + 1;
+        });
+    }
+
+    int trackedKeys() {
+        return windows.size();
+    }
+
+    private record Window(long index, int previous, int current, long windowMillis) {
+
+        Window rollTo(long newIndex) {
+            if (newIndex <= index) {
+                return this;
+            }
+            int carried = (newIndex == index + 1) ? current : 0;
+            return new Window(newIndex, carried, 0, windowMillis);
+        }
+
+        Window increment() {
+            return new Window(index, previous, current + 1, windowMillis);
+        }
+    }
+}
@@ -2,16 +2,13 @@ package org.qbitspark.bishambatipsservice.payment_service.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
-import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
 import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemNotFoundException;
 import org.qbitspark.bishambatipsservice.globeresponsebody.GlobeSuccessResponseBuilder;
+import org.qbitspark.bishambatipsservice.globesecurity.AuthenticatedAccountProvider;
 import org.qbitspark.bishambatipsservice.payment_service.entity.CommissionEntity;
 import org.qbitspark.bishambatipsservice.payment_service.service.CommissionService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -26,13 +23,13 @@ import jakarta.validation.Valid;
 public class CommissionController {
 
     private final CommissionService commissionService;
-    private final AccountRepo accountRepo;
+    private final AuthenticatedAccountProvider authenticatedAccountProvider;
 
     @GetMapping("/my-commissions")
     @PreAuthorize("hasRole('ROLE_AGENT') or hasRole('ROLE_SUPER_ADMIN')")
     public ResponseEntity<GlobeSuccessResponseBuilder> getMyCommissions() throws ItemNotFoundException {
 
-        AccountEntity agent = getAuthenticatedAccount();
+        AccountEntity agent = authenticatedAccountProvider.getAccount();
         List<CommissionEntity> commissions = commissionService.getAgentCommissions(agent.getId());
 
         return ResponseEntity.ok(GlobeSuccessResponseBuilder.success(
@@ -71,13 +68,4 @@ public class CommissionController {
         return ResponseEntity.ok(GlobeSuccessResponseBuilder.success(
                 "Agent commissions retrieved", commissions));
     }
-
-    private AccountEntity getAuthenticatedAccount() throws ItemNotFoundException {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String userName = userDetails.getUsername();
-
-        return accountRepo.findByUserName(userName)
-                .orElseThrow(() -> new ItemNotFoundException("User not found"));
-    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+-- Adds the unique constraints registration now relies on (AccountEntity.UK_*), replacing the
+-- plain email/phone indexes. Registration no longer pre-checks for existing accounts; a duplicate
+-- insert fails on these constraints and is reported as "already exists" for the clashing field.
+--
+-- Run once before deploying. If the first query returns rows, resolve those duplicates first,
+-- otherwise the ALTER TABLE fails and nothing is changed.
+
+SELECT 'email' AS field, email AS value, count(*) FROM account_table WHERE email IS NOT NULL GROUP BY email HAVING count(*) > 1
+UNION ALL
+SELECT 'phone_number', phone_number, count(*) FROM account_table WHERE phone_number IS NOT NULL GROUP BY phone_number HAVING count(*) > 1
+UNION ALL
+SELECT 'user_name', user_name, count(*) FROM account_table WHERE user_name IS NOT NULL GROUP BY user_name HAVING count(*) > 1;
+
+BEGIN;
+
+ALTER TABLE account_table
+    ADD CONSTRAINT uk_account_email UNIQUE (email),
+    ADD CONSTRAINT uk_account_phone_number UNIQUE (phone_number),
+    ADD CONSTRAINT uk_account_user_name UNIQUE (user_name);
+
+-- Covered by the unique constraints' indexes
+DROP INDEX IF EXISTS idx_email;
+DROP INDEX IF EXISTS idx_phone_number;
+
+COMMIT;
@@ -0,0 +1,23 @@
+-- Makes otp_delivery_table.sealed_otp required: every queued OTP is stored encrypted, and a finished
+-- delivery keeps an empty value instead of NULL. OtpDeliveryServiceImpl no longer handles rows
+-- without a sealed code.
+--
+-- Rows queued before OTPs were encrypted have no code to send; they are failed here (the user can
+-- request a new code). Run once, after every node runs a version that encrypts on enqueue.
+
+BEGIN;
+
+UPDATE otp_delivery_table
+SET status     = 'FAILED',
+    last_error = 'OTP code not available'
+WHERE sealed_otp IS NULL
+  AND status IN ('PENDING', 'SENDING');
+
+UPDATE otp_delivery_table
+SET sealed_otp = '\x'::bytea
+WHERE sealed_otp IS NULL;
+
+ALTER TABLE otp_delivery_table
+    ALTER COLUMN sealed_otp SET NOT NULL;
+
+COMMIT;
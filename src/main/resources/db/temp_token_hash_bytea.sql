@@ -0,0 +1,45 @@
+-- Stores token hashes as the raw 32-byte SHA-256 digest instead of 44-char Base64 text.
+-- Run once before deploying the build that writes binary hashes; existing rows are decoded in place.
+-- If temp_token_table is already partitioned, the ALTER is propagated to every partition.
+--
+-- The hash is compared for equality only, so the lookup index can be either a B-tree (default)
+-- or a hash index, which stores a 4-byte hash code per row instead of the key itself.
+-- See src/test/resources/db/temp_token_hash_lookup_benchmark.sql for a size/latency comparison.
+
+BEGIN;
+
+-- Uniqueness on the text column is no longer relied on (each temp token carries a random jti)
+DO
+$$
+    DECLARE
+        constraint_name text;
+    BEGIN
+        FOR constraint_name IN
+            SELECT c.conname
+            FROM pg_constraint c
+                     JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+            WHERE c.conrelid = 'temp_token_table'::regclass
+              AND c.contype = 'u'
+              AND a.attname = 'token_hash'
+            LOOP
+                EXECUTE format('ALTER TABLE temp_token_table DROP CONSTRAINT %I', constraint_name);
+            END LOOP;
+    END
+$$;
+
+DROP INDEX IF EXISTS idx_token_hash;
+
+ALTER TABLE temp_token_table
+    ALTER COLUMN token_hash TYPE bytea USING decode(token_hash, 'base64');
+
+ALTER TABLE otp_delivery_table
+    ALTER COLUMN token_hash TYPE bytea USING decode(token_hash, 'base64');
+
+-- B-tree lookup index (default)
+CREATE INDEX idx_token_hash ON temp_token_table (token_hash);
+
+-- Hash index option: replace the line above with
+-- CREATE INDEX idx_token_hash ON temp_token_table USING hash (token_hash);
+-- The name is kept so Hibernate schema validation/update still finds the index.
+
+COMMIT;
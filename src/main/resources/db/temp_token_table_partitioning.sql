@@ -0,0 +1,67 @@
+-- Converts temp_token_table into a table range-partitioned by created_at (one partition per day).
+-- Run once, in a maintenance window, then start the service with app.temp-token.partitioning.enabled=true.
+-- From then on TempTokenPartitionManager creates upcoming partitions and drops expired ones.
+-- A DEFAULT partition catches rows no daily partition covers (e.g. maintenance was down for days),
+-- so inserts never fail; the manager moves such rows into their own daily partition on its next run.
+--
+-- Postgres requires the partition key in every unique constraint, so the primary key becomes
+-- (id, created_at) and token_hash is indexed but no longer globally unique (each temp token
+-- carries a random jti, so its hash is unique in practice).
+--
+-- Requires token_hash to already be bytea: run temp_token_hash_bytea.sql first.
+
+BEGIN;
+
+ALTER TABLE temp_token_table RENAME TO temp_token_table_legacy;
+
+CREATE TABLE temp_token_table
+(
+    id              uuid         NOT NULL,
+    token_hash      bytea        NOT NULL,
+    purpose         varchar(255) NOT NULL,
+    identifier      varchar(255) NOT NULL,
+    user_identifier varchar(255) NOT NULL,
+    otp_hash        varchar(255) NOT NULL,
+    created_at      timestamp(6) NOT NULL,
+    expires_at      timestamp(6) NOT NULL,
+    is_used         boolean      NOT NULL,
+    attempts        integer      NOT NULL,
+    max_attempts    integer      NOT NULL,
+    account_id      uuid REFERENCES account_table (id),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Or USING hash (token_hash), see temp_token_hash_bytea.sql
+CREATE INDEX idx_token_hash ON temp_token_table (token_hash);
+CREATE INDEX idx_expires_at ON temp_token_table (expires_at);
+CREATE INDEX idx_account_purpose_created ON temp_token_table (account_id, purpose, created_at);
+CREATE INDEX idx_user_identifier_purpose_created ON temp_token_table (user_identifier, purpose, created_at);
+
+-- Daily partitions from yesterday to two days ahead; the manager keeps extending the range
+DO
+$$
+    DECLARE
+        day date;
+    BEGIN
+        FOR day IN SELECT generate_series(current_date - 1, current_date + 2, interval '1 day')::date
+            LOOP
+                EXECUTE format(
+                        'CREATE TABLE IF NOT EXISTS %I PARTITION OF temp_token_table FOR VALUES FROM (%L) TO (%L)',
+                        'temp_token_table_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+            END LOOP;
+    END
+$$;
+
+CREATE TABLE temp_token_table_default PARTITION OF temp_token_table DEFAULT;
+
+-- Only rows that can still be used or rate-limited against are worth keeping
+INSERT INTO temp_token_table (id, token_hash, purpose, identifier, user_identifier, otp_hash,
+                              created_at, expires_at, is_used, attempts, max_attempts, account_id)
+SELECT id, token_hash, purpose, identifier, user_identifier, otp_hash,
+       created_at, expires_at, is_used, attempts, max_attempts, account_id
+FROM temp_token_table_legacy
+WHERE created_at >= current_date - 1;
+
+DROP TABLE temp_token_table_legacy;
+
+COMMIT;
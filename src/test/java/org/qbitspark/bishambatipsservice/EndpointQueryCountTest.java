@@ -0,0 +1,274 @@
+package org.qbitspark.bishambatipsservice;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.Roles;
+import org.qbitspark.bishambatipsservice.authentication_service.payloads.AccountListFilter;
+import org.qbitspark.bishambatipsservice.authentication_service.payloads.AccountPageResponse;
+import org.qbitspark.bishambatipsservice.authentication_service.payloads.UpdateUserRequest;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.RolesRepository;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpDeliveryService;
+import org.qbitspark.bishambatipsservice.authentication_service.service.impl.AccountServiceImpl;
+import org.qbitspark.bishambatipsservice.farmer_mng_service.entities.FarmerEntity;
+import org.qbitspark.bishambatipsservice.farmer_mng_service.payloads.ConfirmTermsRequest;
+import org.qbitspark.bishambatipsservice.farmer_mng_service.payloads.FarmerResponse;
+import org.qbitspark.bishambatipsservice.farmer_mng_service.repo.FarmerRepository;
+import org.qbitspark.bishambatipsservice.farmer_mng_service.service.impl.FarmerServiceImpl;
+import org.qbitspark.bishambatipsservice.globesecurity.AccountTokenVersionCache;
+import org.qbitspark.bishambatipsservice.globesecurity.AuthenticatedAccountProvider;
+import org.qbitspark.bishambatipsservice.globesecurity.CustomUserDetailsService;
+import org.qbitspark.bishambatipsservice.globesecurity.RoleRegistry;
+import org.qbitspark.bishambatipsservice.globesecurity.UserDetailsCache;
+import org.qbitspark.bishambatipsservice.sms_service.GlobeSmsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Statement budget per controller endpoint, counted with Hibernate statistics against H2.
+ * Each call starts from an empty persistence context, as a real request would, and reads
+ * roles the way the controllers map their responses. A regression back to per-row role
+ * or agent loads shows up as a higher count.
+ */
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class EndpointQueryCountTest {
+
+    private static final int ACCOUNTS = 20;
+    private static final int FARMERS_PER_AGENT = 5;
+
+    @Configuration
+    @EntityScan(basePackageClasses = {AccountEntity.class, FarmerEntity.class})
+    @EnableJpaRepositories(basePackageClasses = {AccountRepo.class, FarmerRepository.class})
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private RolesRepository rolesRepository;
+
+    @Autowired
+    private FarmerRepository farmerRepository;
+
+    private Statistics statistics;
+    private RoleRegistry roleRegistry;
+
+    private AccountEntity admin;
+    private AccountEntity agent;
+    private Roles agentRole;
+    private Roles userRole;
+    private FarmerEntity farmer;
+
+    @BeforeEach
+    void setUp() {
+        Roles adminRole = rolesRepository.save(new Roles(null, RoleRegistry.ROLE_SUPER_ADMIN));
+        agentRole = rolesRepository.save(new Roles(null, RoleRegistry.ROLE_AGENT));
+        userRole = rolesRepository.save(new Roles(null, RoleRegistry.ROLE_USER));
+
+        roleRegistry = new RoleRegistry(rolesRepository);
+        roleRegistry.refresh();
+
+        admin = accountRepo.save(account("admin", Set.of(adminRole)));
+        for (int i = 0; i < ACCOUNTS; i++) {
+            AccountEntity account = accountRepo.save(account("agent" + i, Set.of(agentRole)));
+            for (int j = 0; j < FARMERS_PER_AGENT; j++) {
+                FarmerEntity saved = farmerRepository.save(farmer(account, "2557" + i + "0000" + j));
+                if (i == 0 && j == 0) {
+                    farmer = saved;
+                }
+            }
+            if (i == 0) {
+                agent = account;
+            }
+        }
+
+        entityManager.flush();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void listAccounts() throws Exception {
+        // One page query plus one batched role query for the page
+        AccountPageResponse page = count(2, () ->
+                accountService().getAccountsPage(new AccountListFilter(), null, 50));
+
+        assertEquals(ACCOUNTS + 1, page.getAccounts().size());
+    }
+
+    @Test
+    void getAccountById() throws Exception {
+        // Target account with roles, then the caller with roles
+        count(2, () -> roleNames(accountService().getAccountById(agent.getId())));
+    }
+
+    @Test
+    void approveAccount() throws Exception {
+        count(3, () -> roleNames(accountService().approveUser(agent.getId())), true);
+    }
+
+    @Test
+    void assignRole() throws Exception {
+        // Load with roles, bump the token version and replace the join row; the response
+        // reading the new role's name initializes its reference
+        count(5, () -> roleNames(accountService().assignRole(agent.getId(), userRole.getRoleId())), true);
+    }
+
+    @Test
+    void updateAccount() throws Exception {
+        UpdateUserRequest request = new UpdateUserRequest();
+        request.setFirstName("Renamed");
+
+        count(3, () -> roleNames(accountService().updateUserDetails(agent.getId(), request)), true);
+    }
+
+    @Test
+    void loadUserByUsername() throws Exception {
+        // Backs login and password upgrades; roles come with the account
+        count(1, () -> new CustomUserDetailsService(accountRepo, roleRegistry)
+                .loadUserByUsername(agent.getUserName()));
+    }
+
+    @Test
+    void myFarmers() throws Exception {
+        authenticate(agent);
+
+        List<FarmerResponse> farmers = count(2, () -> farmerService().getMyFarmers());
+
+        assertEquals(FARMERS_PER_AGENT, farmers.size());
+    }
+
+    @Test
+    void allFarmers() throws Exception {
+        authenticate(admin);
+
+        // Agents stay unloaded: the response only needs their id
+        List<FarmerResponse> farmers = count(2, () -> farmerService().getAllFarmers());
+
+        assertEquals(ACCOUNTS * FARMERS_PER_AGENT, farmers.size());
+    }
+
+    @Test
+    void farmerById() throws Exception {
+        authenticate(agent);
+
+        count(2, () -> farmerService().getFarmerById(farmer.getId()));
+    }
+
+    @Test
+    void confirmTerms() throws Exception {
+        authenticate(agent);
+        ConfirmTermsRequest request = new ConfirmTermsRequest();
+        request.setTermsAgreementCode(farmer.getTermsAgreementCode());
+
+        count(3, () -> farmerService().confirmTermsAgreement(farmer.getId(), request), true);
+    }
+
+    @FunctionalInterface
+    private interface Endpoint<T> {
+        T call() throws Exception;
+    }
+
+    private <T> T count(long expectedStatements, Endpoint<T> endpoint) throws Exception {
+        return count(expectedStatements, endpoint, false);
+    }
+
+    private <T> T count(long expectedStatements, Endpoint<T> endpoint, boolean flush) throws Exception {
+        entityManager.clear();
+        statistics.clear();
+
+        T result = endpoint.call();
+        if (flush) {
+            entityManager.flush();
+        }
+
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount(),
+                () -> "Statements: " + String.join("\n", statistics.getQueries()));
+        return result;
+    }
+
+    private AccountServiceImpl accountService() {
+        authenticate(admin);
+        return new AccountServiceImpl(accountRepo, roleRegistry, null, null, null, null, null, null,
+                mock(OtpDeliveryService.class), mock(AccountTokenVersionCache.class), mock(UserDetailsCache.class),
+                new AuthenticatedAccountProvider(accountRepo), null);
+    }
+
+    // A fresh provider stands in for one request scope
+    private FarmerServiceImpl farmerService() {
+        return new FarmerServiceImpl(farmerRepository, new AuthenticatedAccountProvider(accountRepo),
+                mock(GlobeSmsService.class));
+    }
+
+    private static Set<String> roleNames(AccountEntity account) {
+        return account.getRoles().stream().map(Roles::getRoleName).collect(Collectors.toSet());
+    }
+
+    private static void authenticate(AccountEntity account) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new User(account.getUserName(), "", List.of()), null, List.of()));
+    }
+
+    private static AccountEntity account(String userName, Set<Roles> roles) {
+        AccountEntity account = new AccountEntity();
+        account.setUserName(userName);
+        account.setEmail(userName + "@example.com");
+        account.setPhoneNumber("2556" + Math.abs(userName.hashCode()));
+        account.setFirstName(userName);
+        account.setLastName("Test");
+        account.setPassword("{noop}secret");
+        account.setIsVerified(true);
+        account.setCreatedAt(LocalDateTime.now());
+        account.setRoles(new HashSet<>(roles));
+        return account;
+    }
+
+    private static FarmerEntity farmer(AccountEntity agent, String phoneNumber) {
+        FarmerEntity farmer = new FarmerEntity();
+        farmer.setPhoneNumber(phoneNumber);
+        farmer.setFirstName("Farmer");
+        farmer.setLastName(phoneNumber);
+        farmer.setRegion("Kagera");
+        farmer.setCrops(List.of("coffee", "banana"));
+        farmer.setAgent(agent);
+        farmer.setTermsAgreementCode("123-456");
+        farmer.setTermsCodeExpiresAt(LocalDateTime.now().plusMinutes(30));
+        farmer.setCreatedAt(LocalDateTime.now());
+        return farmer;
+    }
+}
@@ -0,0 +1,157 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.Roles;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.payloads.CreateAccountRequest;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.RolesRepository;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpDeliveryService;
+import org.qbitspark.bishambatipsservice.authentication_service.service.TempTokenService;
+import org.qbitspark.bishambatipsservice.authentication_service.utils.UsernameGenerationUtils;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.ItemReadyExistException;
+import org.qbitspark.bishambatipsservice.globesecurity.AuthenticatedAccountProvider;
+import org.qbitspark.bishambatipsservice.globesecurity.RoleRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Registration relies on account_table's unique constraints instead of an existence pre-check.
+ */
+class AccountServiceImplTest {
+
+    private AccountRepo accountRepo;
+    private RolesRepository rolesRepository;
+    private TempTokenService tempTokenService;
+    private UsernameGenerationUtils usernameGenerationUtils;
+    private OtpDeliveryService otpDeliveryService;
+    private PasswordEncoder passwordEncoder;
+    private AccountServiceImpl accountService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        accountRepo = mock(AccountRepo.class);
+        rolesRepository = mock(RolesRepository.class);
+        tempTokenService = mock(TempTokenService.class);
+        otpDeliveryService = mock(OtpDeliveryService.class);
+
+        usernameGenerationUtils = mock(UsernameGenerationUtils.class);
+        when(usernameGenerationUtils.generateUsernameFromEmail(anyString())).thenReturn("office-a1B2c3D");
+
+        passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenReturn("{bcrypt}hash");
+
+        Roles userRole = new Roles(UUID.randomUUID(), RoleRegistry.ROLE_USER);
+        when(rolesRepository.findAll()).thenReturn(List.of(userRole));
+        when(rolesRepository.getReferenceById(userRole.getRoleId())).thenReturn(userRole);
+        RoleRegistry roleRegistry = new RoleRegistry(rolesRepository);
+        roleRegistry.refresh();
+        when(tempTokenService.createTempToken(any(), any(), anyString(), anyString())).thenReturn("temp-token");
+
+        accountService = new AccountServiceImpl(accountRepo, roleRegistry, passwordEncoder, null, null,
+                usernameGenerationUtils, tempTokenService, null, otpDeliveryService, null, null,
+                new AuthenticatedAccountProvider(accountRepo), mock(PlatformTransactionManager.class));
+    }
+
+    private CreateAccountRequest request() {
+        CreateAccountRequest request = new CreateAccountRequest();
+        request.setEmail("office@qbitspark.com");
+        request.setPhoneNumber("255700000000");
+        request.setPassword("Secret@123");
+        request.setFirstName("Office");
+        request.setLastName("User");
+        request.setMiddleName("M");
+        request.setVerificationChannel(VerificationChannels.EMAIL_AND_SMS);
+        return request;
+    }
+
+    private DataIntegrityViolationException duplicate(String constraintName) {
+        return new DataIntegrityViolationException("duplicate key",
+                new ConstraintViolationException("duplicate key", new SQLException("23505"), constraintName));
+    }
+
+    @Test
+    void registersWithASingleInsertAndNoRoleQuery() throws Exception {
+        when(accountRepo.saveAndFlush(any(AccountEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals("temp-token", accountService.registerAccount(request()));
+        assertEquals("temp-token", accountService.registerAccount(request()));
+
+        verify(accountRepo, times(2)).saveAndFlush(any(AccountEntity.class));
+        verify(rolesRepository, times(1)).findAll();
+        verify(rolesRepository, never()).findByRoleName(anyString());
+    }
+
+    @Test
+    void sendsTheOtpThroughTheRequestedChannel() throws Exception {
+        when(accountRepo.saveAndFlush(any(AccountEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        accountService.registerAccount(request());
+
+        verify(otpDeliveryService).enqueue(eq("temp-token"), eq(TempTokenPurpose.REGISTRATION_OTP),
+                eq(VerificationChannels.EMAIL_AND_SMS), any(AccountEntity.class), anyString());
+    }
+
+    @Test
+    void reportsWhichFieldClashed() {
+        when(accountRepo.saveAndFlush(any(AccountEntity.class))).thenThrow(duplicate(AccountEntity.UK_PHONE_NUMBER));
+
+        ItemReadyExistException exception = assertThrows(ItemReadyExistException.class,
+                () -> accountService.registerAccount(request()));
+
+        assertTrue(exception.getMessage().contains("phone number"));
+        verifyNoInteractions(tempTokenService);
+    }
+
+    @Test
+    void retriesWithAFreshUsernameWhenTheGeneratedOneIsTaken() throws Exception {
+        when(usernameGenerationUtils.generateUsernameFromEmail(anyString()))
+                .thenReturn("office-a1B2c3D", "office-e4F5g6H");
+        List<String> attempted = new ArrayList<>();
+        when(accountRepo.saveAndFlush(any(AccountEntity.class))).thenAnswer(invocation -> {
+            AccountEntity account = invocation.getArgument(0);
+            attempted.add(account.getUserName());
+            if (attempted.size() == 1) {
+                throw duplicate(AccountEntity.UK_USER_NAME);
+            }
+            return account;
+        });
+
+        assertEquals("temp-token", accountService.registerAccount(request()));
+        assertEquals(List.of("office-a1B2c3D", "office-e4F5g6H"), attempted);
+        verify(passwordEncoder, times(1)).encode("Secret@123");
+        verify(tempTokenService, times(1)).createTempToken(any(), any(), anyString(), anyString());
+    }
+
+    @Test
+    void givesUpAfterABoundedNumberOfUsernameClashes() {
+        when(accountRepo.saveAndFlush(any(AccountEntity.class))).thenThrow(duplicate(AccountEntity.UK_USER_NAME));
+
+        assertThrows(ItemReadyExistException.class, () -> accountService.registerAccount(request()));
+        verify(accountRepo, times(3)).saveAndFlush(any(AccountEntity.class));
+        verifyNoInteractions(tempTokenService);
+    }
+
+    @Test
+    void rethrowsUnrelatedIntegrityViolations() {
+        when(accountRepo.saveAndFlush(any(AccountEntity.class))).thenThrow(duplicate("fk_something_else"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> accountService.registerAccount(request()));
+    }
+}
@@ -0,0 +1,139 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.TempTokenEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InMemoryTempTokenStoreTest {
+
+    private static final String EMAIL = "farmer@example.com";
+
+    private AccountEntity account;
+    private InMemoryTempTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        account = new AccountEntity();
+        account.setId(UUID.randomUUID());
+        account.setEmail(EMAIL);
+
+        AccountRepo accountRepo = mock(AccountRepo.class);
+        when(accountRepo.findWithRolesById(account.getId())).thenReturn(Optional.of(account));
+
+        store = new InMemoryTempTokenStore(accountRepo, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "maxSize", 1000L);
+        ReflectionTestUtils.setField(store, "retentionMinutes", 60L);
+        store.initStore();
+    }
+
+    private TempTokenEntity token(String tokenHash, AccountEntity owner, LocalDateTime createdAt) {
+        TempTokenEntity token = new TempTokenEntity();
+        token.setTokenHash(hash(tokenHash));
+        token.setPurpose(TempTokenPurpose.LOGIN_OTP);
+        token.setIdentifier(EMAIL);
+        token.setUserIdentifier(EMAIL);
+        token.setOtpHash("hmac$salt$mac");
+        token.setAccount(owner);
+        token.setCreatedAt(createdAt);
+        token.setExpiresAt(createdAt.plusMinutes(10));
+        return token;
+    }
+
+    // A fresh array each call, so lookups match on content rather than identity
+    private static byte[] hash(String label) {
+        return label.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void changesApplyOnlyWhenSaved() {
+        store.save(token("hash-1", account, LocalDateTime.now()));
+
+        TempTokenEntity loaded = store.findByTokenHash(hash("hash-1")).orElseThrow();
+        loaded.incrementAttempts();
+        assertEquals(0, store.findByTokenHash(hash("hash-1")).orElseThrow().getAttempts());
+
+        store.save(loaded);
+        TempTokenEntity reloaded = store.findByTokenHash(hash("hash-1")).orElseThrow();
+        assertEquals(1, reloaded.getAttempts());
+        assertSame(account, reloaded.getAccount());
+    }
+
+    @Test
+    void concurrentUpdatesOfOneTokenAreNotLost() throws Exception {
+        store.save(token("hash-1", account, LocalDateTime.now()));
+        int threads = 8;
+        AtomicInteger winners = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    store.incrementAttempts(hash("hash-1"));
+                    if (store.markUsed(hash("hash-1"))) {
+                        winners.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+
+        assertEquals(1, winners.get());
+        TempTokenEntity stored = store.findByTokenHash(hash("hash-1")).orElseThrow();
+        assertEquals(threads, stored.getAttempts());
+        assertTrue(stored.getIsUsed());
+    }
+
+    @Test
+    void marksOnlyUnusedTokensOfTheOwnerAsUsed() {
+        store.save(token("hash-1", account, LocalDateTime.now()));
+        store.save(token("hash-2", account, LocalDateTime.now()));
+        TempTokenEntity used = token("hash-3", account, LocalDateTime.now());
+        used.markAsUsed();
+        store.save(used);
+
+        assertEquals(2, store.markUnusedAsUsedByAccount(account, TempTokenPurpose.LOGIN_OTP));
+        assertTrue(store.findByTokenHash(hash("hash-1")).orElseThrow().getIsUsed());
+        assertEquals(0, store.markUnusedAsUsedByUserIdentifier(EMAIL, TempTokenPurpose.LOGIN_OTP));
+    }
+
+    @Test
+    void countsAndLatestRespectTheWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        store.save(token("old", account, now.minusMinutes(30)));
+        store.save(token("recent", account, now.minusMinutes(5)));
+        store.save(token("latest", account, now.minusMinutes(1)));
+
+        LocalDateTime windowStart = now.minusMinutes(15);
+        assertEquals(2, store.countByAccountCreatedAfter(account, TempTokenPurpose.LOGIN_OTP, windowStart));
+        assertEquals(2, store.countByUserIdentifierCreatedAfter(EMAIL, TempTokenPurpose.LOGIN_OTP, windowStart));
+        assertEquals(0, store.countByUserIdentifierCreatedAfter(EMAIL, TempTokenPurpose.PASSWORD_RESET_OTP, windowStart));
+        assertEquals(now.minusMinutes(1), store.findLatestCreatedAt(EMAIL, TempTokenPurpose.LOGIN_OTP, now.minusHours(1)).orElseThrow());
+    }
+}
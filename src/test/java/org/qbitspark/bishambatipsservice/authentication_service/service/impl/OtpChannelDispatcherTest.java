@@ -0,0 +1,206 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpChannelSender;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.RandomExceptions;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpChannelDispatcherTest {
+
+    private static OtpChannelSender sender(VerificationChannels channel, long delayMillis, boolean fails, long timeoutMillis) {
+        return new OtpChannelSender() {
+            @Override
+            public VerificationChannels channel() {
+                return channel;
+            }
+
+            @Override
+            public Duration timeout() {
+                return Duration.ofMillis(timeoutMillis);
+            }
+
+            @Override
+            public void send(OtpDeliveryEntity delivery) throws Exception {
+                Thread.sleep(delayMillis);
+                if (fails) {
+                    throw new IllegalStateException(channel + " gateway down");
+                }
+            }
+        };
+    }
+
+    private static OtpChannelDispatcher dispatcher(List<OtpChannelSender> senders) {
+        OtpChannelDispatcher dispatcher = new OtpChannelDispatcher(senders);
+        ReflectionTestUtils.setField(dispatcher, "abortGraceMillis", 1_000L);
+        return dispatcher;
+    }
+
+    private static OtpDeliveryEntity delivery(VerificationChannels channel) {
+        OtpDeliveryEntity delivery = new OtpDeliveryEntity();
+        delivery.setChannel(channel);
+        return delivery;
+    }
+
+    @Test
+    void firstSuccessfulChannelWins() throws Exception {
+        OtpChannelDispatcher dispatcher = dispatcher(List.of(
+                sender(VerificationChannels.SMS, 2_000, false, 5_000),
+                sender(VerificationChannels.EMAIL, 10, false, 5_000)));
+
+        assertEquals(VerificationChannels.EMAIL, dispatcher.dispatch(delivery(VerificationChannels.EMAIL_AND_SMS)));
+    }
+
+    @Test
+    void compositeChannelSendsThroughEveryConcreteChannel() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        OtpChannelSender sms = waitingSender(VerificationChannels.SMS, started);
+        OtpChannelSender email = waitingSender(VerificationChannels.EMAIL, started);
+        OtpChannelDispatcher dispatcher = dispatcher(List.of(sms, email));
+
+        // Neither sender returns until both have been called
+        assertNotNull(dispatcher.dispatch(delivery(VerificationChannels.EMAIL_AND_SMS)));
+        assertEquals(0, started.getCount());
+    }
+
+    private static OtpChannelSender waitingSender(VerificationChannels channel, CountDownLatch started) {
+        return new OtpChannelSender() {
+            @Override
+            public VerificationChannels channel() {
+                return channel;
+            }
+
+            @Override
+            public Duration timeout() {
+                return Duration.ofSeconds(5);
+            }
+
+            @Override
+            public void send(OtpDeliveryEntity delivery) throws Exception {
+                started.countDown();
+                if (!started.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("other channel was never called");
+                }
+            }
+        };
+    }
+
+    @Test
+    void failedChannelDoesNotBeatSlowerSuccess() throws Exception {
+        OtpChannelDispatcher dispatcher = dispatcher(List.of(
+                sender(VerificationChannels.SMS, 200, false, 5_000),
+                sender(VerificationChannels.EMAIL, 0, true, 5_000)));
+
+        assertEquals(VerificationChannels.SMS, dispatcher.dispatch(delivery(VerificationChannels.ALL_CHANNELS)));
+    }
+
+    @Test
+    void failsWhenEveryChannelTimesOut() {
+        OtpChannelDispatcher dispatcher = dispatcher(List.of(
+                sender(VerificationChannels.SMS, 2_000, false, 50),
+                sender(VerificationChannels.EMAIL, 2_000, false, 50)));
+
+        assertThrows(TimeoutException.class, () -> dispatcher.dispatch(delivery(VerificationChannels.EMAIL_AND_SMS)));
+    }
+
+    @Test
+    void timedOutAttemptIsInterruptedBeforeTheFailureIsReported() {
+        AtomicBoolean stopped = new AtomicBoolean();
+        OtpChannelSender hanging = new OtpChannelSender() {
+            @Override
+            public VerificationChannels channel() {
+                return VerificationChannels.SMS;
+            }
+
+            @Override
+            public Duration timeout() {
+                return Duration.ofMillis(50);
+            }
+
+            @Override
+            public void send(OtpDeliveryEntity delivery) throws Exception {
+                try {
+                    Thread.sleep(10_000);
+                } finally {
+                    stopped.set(true);
+                }
+            }
+        };
+
+        assertThrows(TimeoutException.class, () -> dispatcher(List.of(hanging)).dispatch(delivery(VerificationChannels.SMS)));
+        assertTrue(stopped.get());
+    }
+
+    @Test
+    void attemptThatIgnoresTheInterruptIsReportedAsStillRunning() {
+        CountDownLatch release = new CountDownLatch(1);
+        OtpChannelSender stubborn = new OtpChannelSender() {
+            @Override
+            public VerificationChannels channel() {
+                return VerificationChannels.SMS;
+            }
+
+            @Override
+            public Duration timeout() {
+                return Duration.ofMillis(50);
+            }
+
+            @Override
+            public void send(OtpDeliveryEntity delivery) {
+                while (true) {
+                    try {
+                        release.await();
+                        return;
+                    } catch (InterruptedException ignored) {
+                        // keeps waiting, like a client that swallows interrupts
+                    }
+                }
+            }
+        };
+
+        OtpChannelDispatcher dispatcher = dispatcher(List.of(stubborn));
+        ReflectionTestUtils.setField(dispatcher, "abortGraceMillis", 100L);
+        try {
+            assertThrows(OtpChannelDispatcher.AttemptStillRunningException.class,
+                    () -> dispatcher.dispatch(delivery(VerificationChannels.SMS)));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void leaseCoversTheSlowestChannelAndTheGrace() {
+        OtpChannelDispatcher dispatcher = dispatcher(List.of(
+                sender(VerificationChannels.SMS, 0, false, 20_000),
+                sender(VerificationChannels.EMAIL, 0, false, 10_000)));
+
+        assertEquals(Duration.ofMillis(21_000), dispatcher.longestAttempt());
+    }
+
+    @Test
+    void channelsWithoutSenderAreNotSupported() {
+        OtpChannelDispatcher dispatcher = dispatcher(List.of(
+                sender(VerificationChannels.SMS, 0, false, 1_000)));
+
+        assertFalse(dispatcher.supports(VerificationChannels.WHATSAPP));
+        assertTrue(dispatcher.supports(VerificationChannels.SMS_AND_WHATSAPP));
+    }
+
+    @Test
+    void rejectsChannelsWithoutSender() {
+        OtpChannelDispatcher dispatcher = dispatcher(List.of(
+                sender(VerificationChannels.SMS, 0, false, 1_000)));
+
+        assertThrows(RandomExceptions.class, () -> dispatcher.dispatch(delivery(VerificationChannels.VOICE_CALL)));
+    }
+}
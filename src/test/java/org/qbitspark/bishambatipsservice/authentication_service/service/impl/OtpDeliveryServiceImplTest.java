@@ -0,0 +1,83 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.OtpDeliveryStatus;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.OtpDeliveryRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * The OTP only exists in plaintext in memory: encrypted on enqueue, decrypted when claimed.
+ */
+class OtpDeliveryServiceImplTest {
+
+    private OtpDeliveryRepository otpDeliveryRepository;
+    private OtpDeliveryServiceImpl otpDeliveryService;
+
+    @BeforeEach
+    void setUp() {
+        otpDeliveryRepository = mock(OtpDeliveryRepository.class);
+        when(otpDeliveryRepository.save(any(OtpDeliveryEntity.class))).thenAnswer(invocation -> {
+            OtpDeliveryEntity delivery = invocation.getArgument(0);
+            delivery.setId(UUID.randomUUID());
+            return delivery;
+        });
+
+        OtpChannelDispatcher dispatcher = mock(OtpChannelDispatcher.class);
+        when(dispatcher.supports(any())).thenReturn(true);
+        when(dispatcher.longestAttempt()).thenReturn(Duration.ofSeconds(25));
+
+        otpDeliveryService = new OtpDeliveryServiceImpl(otpDeliveryRepository,
+                mock(ApplicationEventPublisher.class), dispatcher);
+        ReflectionTestUtils.setField(otpDeliveryService, "encryptionSecret", "test-secret");
+        ReflectionTestUtils.setField(otpDeliveryService, "leaseSeconds", 60L);
+        otpDeliveryService.initCipher();
+    }
+
+    private OtpDeliveryEntity enqueued() throws Exception {
+        AccountEntity account = new AccountEntity();
+        account.setPhoneNumber("255700000000");
+        otpDeliveryService.enqueue("temp-token", TempTokenPurpose.LOGIN_OTP, VerificationChannels.SMS, account, "123456");
+
+        ArgumentCaptor<OtpDeliveryEntity> saved = ArgumentCaptor.forClass(OtpDeliveryEntity.class);
+        verify(otpDeliveryRepository).save(saved.capture());
+        return saved.getValue();
+    }
+
+    @Test
+    void storesTheOtpEncrypted() throws Exception {
+        OtpDeliveryEntity delivery = enqueued();
+
+        assertNull(delivery.getOtpCode());
+        assertNotNull(delivery.getSealedOtp());
+        assertFalse(new String(delivery.getSealedOtp(), StandardCharsets.ISO_8859_1).contains("123456"));
+    }
+
+    @Test
+    void claimDecryptsTheOtpForTheSenders() throws Exception {
+        OtpDeliveryEntity delivery = enqueued();
+        delivery.setAttempts(0);
+        when(otpDeliveryRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(delivery));
+
+        List<OtpDeliveryEntity> claimed = otpDeliveryService.claimDueDeliveries(10);
+
+        assertEquals("123456", claimed.get(0).getOtpCode());
+        assertEquals(OtpDeliveryStatus.SENDING, claimed.get(0).getStatus());
+    }
+}
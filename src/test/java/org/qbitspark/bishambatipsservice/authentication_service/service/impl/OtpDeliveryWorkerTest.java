@@ -0,0 +1,94 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.OtpDeliveryEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.VerificationChannels;
+import org.qbitspark.bishambatipsservice.authentication_service.service.OtpDeliveryService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * A drain claims at most the permits it could take without waiting and hands back the ones it did not use.
+ */
+class OtpDeliveryWorkerTest {
+
+    private static final int CONCURRENCY = 4;
+
+    private OtpDeliveryService otpDeliveryService;
+    private OtpChannelDispatcher otpChannelDispatcher;
+    private OtpDeliveryWorker worker;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        otpDeliveryService = mock(OtpDeliveryService.class);
+        otpChannelDispatcher = mock(OtpChannelDispatcher.class);
+        when(otpChannelDispatcher.dispatch(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return VerificationChannels.SMS;
+        });
+
+        worker = new OtpDeliveryWorker(otpDeliveryService, otpChannelDispatcher);
+        ReflectionTestUtils.setField(worker, "concurrency", CONCURRENCY);
+        worker.initPermits();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        worker.shutdown();
+    }
+
+    private Semaphore permits() {
+        return (Semaphore) ReflectionTestUtils.getField(worker, "inFlight");
+    }
+
+    private static OtpDeliveryEntity delivery() {
+        OtpDeliveryEntity delivery = new OtpDeliveryEntity();
+        delivery.setId(UUID.randomUUID());
+        return delivery;
+    }
+
+    @Test
+    void keepsOnlyThePermitsOfClaimedDeliveries() {
+        when(otpDeliveryService.claimDueDeliveries(anyInt())).thenReturn(List.of(delivery()));
+
+        worker.poll();
+
+        verify(otpDeliveryService).claimDueDeliveries(CONCURRENCY);
+        assertEquals(CONCURRENCY - 1, permits().availablePermits());
+    }
+
+    @Test
+    void skipsClaimingWhenEveryPermitIsInUse() {
+        when(otpDeliveryService.claimDueDeliveries(anyInt()))
+                .thenReturn(List.of(delivery(), delivery(), delivery(), delivery()));
+
+        worker.poll();
+        worker.poll();
+
+        verify(otpDeliveryService, times(1)).claimDueDeliveries(anyInt());
+        assertEquals(0, permits().availablePermits());
+    }
+
+    @Test
+    void returnsPermitsWhenClaimFails() {
+        when(otpDeliveryService.claimDueDeliveries(anyInt())).thenThrow(new IllegalStateException("db down"));
+
+        worker.poll();
+
+        assertEquals(CONCURRENCY, permits().availablePermits());
+    }
+}
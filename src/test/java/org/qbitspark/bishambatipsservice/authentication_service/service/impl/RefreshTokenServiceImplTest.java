@@ -0,0 +1,225 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.RefreshTokenEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.RefreshTokenRepository;
+import org.qbitspark.bishambatipsservice.authentication_service.service.RefreshTokenService;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.TokenInvalidException;
+import org.qbitspark.bishambatipsservice.globesecurity.JWTProvider;
+import org.qbitspark.bishambatipsservice.globesecurity.JWTProviderBenchmark;
+import org.qbitspark.bishambatipsservice.globesecurity.RevokedTokenDenylist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rotation, reuse detection and concurrent exchange against a real database (H2). Every call
+ * commits on its own, as it does behind the controller.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "app.jwt-secret=c2VjcmV0LWtleS1mb3ItdGVzdHMtb25seS1ub3QtZm9yLXByb2R1Y3Rpb24tdXNlLWF0LWFsbA==",
+        "app.jwt-expiration-milliseconds=3600000",
+        "app.jwt-refresh-token.expiration-days=30"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceImplTest {
+
+    @Configuration
+    @EntityScan(basePackageClasses = AccountEntity.class)
+    @EnableJpaRepositories(basePackageClasses = AccountRepo.class)
+    @Import({RefreshTokenServiceImpl.class, RevokedTokenDenylist.class, RefreshFlow.class})
+    static class Config {
+
+        @Bean
+        JWTProvider jwtProvider() {
+            // HS256 with an inert key ring; the properties above fill in the rest
+            return JWTProviderBenchmark.newProvider();
+        }
+    }
+
+    /**
+     * Consume and rotate in one transaction, the way AccountServiceImpl.refreshToken does.
+     */
+    @Service
+    static class RefreshFlow {
+
+        @Autowired
+        private RefreshTokenService refreshTokenService;
+
+        @Autowired
+        private AccountRepo accountRepo;
+
+        @Transactional(rollbackFor = Exception.class)
+        public String refresh(String token, boolean failBeforeRotating) throws TokenInvalidException {
+            RefreshTokenService.ConsumedRefreshToken consumed = refreshTokenService.consumeRefreshToken(token);
+            if (failBeforeRotating) {
+                throw new IllegalStateException("Simulated failure between consume and rotate");
+            }
+            AccountEntity account = accountRepo.findByUserName(consumed.userName()).orElseThrow();
+            return refreshTokenService.rotateRefreshToken(consumed, account, authentication(account));
+        }
+    }
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenServiceImpl refreshTokenServiceImpl;
+
+    @Autowired
+    private RefreshFlow refreshFlow;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private JWTProvider jwtProvider;
+
+    private AccountEntity account;
+
+    @BeforeEach
+    void setUp() {
+        account = new AccountEntity();
+        account.setUserName("agent-a1B2c3D");
+        account.setEmail("agent@example.com");
+        account.setPhoneNumber("255700000000");
+        account.setCreatedAt(LocalDateTime.now());
+        account = accountRepo.save(account);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAll();
+        accountRepo.deleteAll();
+    }
+
+    @Test
+    void rotatedTokenStaysUnrevokedButCannotBeReused() throws Exception {
+        String first = refreshTokenService.issueRefreshToken(account, authentication(account));
+        String second = refreshFlow.refresh(first, false);
+
+        RefreshTokenEntity rotated = stored(first);
+        assertNotNull(rotated.getUsedAt());
+        assertEquals(jti(second), rotated.getReplacedByJti());
+        assertFalse(rotated.getRevoked());
+
+        String third = refreshFlow.refresh(second, false);
+        assertNotNull(third);
+    }
+
+    @Test
+    void replayingARotatedTokenRevokesItsSuccessor() throws Exception {
+        String first = refreshTokenService.issueRefreshToken(account, authentication(account));
+        String second = refreshFlow.refresh(first, false);
+
+        TokenInvalidException replay = assertThrows(TokenInvalidException.class, () -> refreshFlow.refresh(first, false));
+        assertTrue(replay.getMessage().contains("already been used"));
+
+        // The revocation committed even though the replayed refresh rolled back
+        assertTrue(stored(second).getRevoked());
+        assertThrows(TokenInvalidException.class, () -> refreshFlow.refresh(second, false));
+    }
+
+    @Test
+    void failureBetweenConsumeAndRotateKeepsTheTokenUsable() throws Exception {
+        String first = refreshTokenService.issueRefreshToken(account, authentication(account));
+
+        assertThrows(IllegalStateException.class, () -> refreshFlow.refresh(first, true));
+
+        assertNull(stored(first).getUsedAt());
+        assertNotNull(refreshFlow.refresh(first, false));
+    }
+
+    @Test
+    void concurrentRefreshesWithOneTokenMintOneChain() throws Exception {
+        String first = refreshTokenService.issueRefreshToken(account, authentication(account));
+
+        int callers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        refreshFlow.refresh(first, false);
+                        succeeded.incrementAndGet();
+                    } catch (TokenInvalidException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, succeeded.get());
+        assertEquals(callers - 1, rejected.get());
+        // Losing callers presented an exchanged token, so the winner's chain is revoked too
+        assertTrue(refreshTokenRepository.findAll().stream().allMatch(RefreshTokenEntity::getRevoked));
+    }
+
+    @Test
+    void purgeDeletesExpiredRows() {
+        String live = refreshTokenService.issueRefreshToken(account, authentication(account));
+        String expired = refreshTokenService.issueRefreshToken(account, authentication(account));
+        RefreshTokenEntity expiredRow = stored(expired);
+        expiredRow.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        refreshTokenRepository.save(expiredRow);
+
+        refreshTokenServiceImpl.purgeExpired();
+
+        assertTrue(refreshTokenRepository.findByJti(jti(live)).isPresent());
+        assertTrue(refreshTokenRepository.findByJti(jti(expired)).isEmpty());
+    }
+
+    private RefreshTokenEntity stored(String token) {
+        return refreshTokenRepository.findByJti(jti(token)).orElseThrow();
+    }
+
+    private String jti(String token) {
+        try {
+            return jwtProvider.verifyToken(token, "REFRESH").getTokenId();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Authentication authentication(AccountEntity account) {
+        return new UsernamePasswordAuthenticationToken(account.getUserName(), null, List.of());
+    }
+}
@@ -0,0 +1,146 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.TempTokenEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.enums.TempTokenPurpose;
+import org.qbitspark.bishambatipsservice.authentication_service.service.TempTokenStore;
+import org.qbitspark.bishambatipsservice.authentication_service.utils.OtpHashingUtils;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.RandomExceptions;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.VerificationException;
+import org.qbitspark.bishambatipsservice.globesecurity.JWTProvider;
+import org.qbitspark.bishambatipsservice.globesecurity.JWTProviderBenchmark;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU per OTP flow for JWT vs opaque temp tokens: issuing a token (create + hash + store) and
+ * resolving it again on verify/resend. The store is a no-op so only token handling is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TempTokenFormatBenchmark {
+
+    private static final String EMAIL = "farmer@example.com";
+
+    @Param({"jwt", "opaque"})
+    private String format;
+
+    private JWTProvider jwtProvider;
+    private TempTokenServiceImpl tempTokenService;
+    private String tempToken;
+
+    @Setup
+    public void setUp() throws RandomExceptions {
+        jwtProvider = JWTProviderBenchmark.newProvider();
+
+        OtpHashingUtils otpHashingUtils = new OtpHashingUtils(new BCryptPasswordEncoder());
+        ReflectionTestUtils.setField(otpHashingUtils, "pepper", "benchmark-pepper");
+        ReflectionTestUtils.invokeMethod(otpHashingUtils, "initPepperKey");
+
+        StubStore store = new StubStore();
+        tempTokenService = new TempTokenServiceImpl(store, jwtProvider, otpHashingUtils, null, null);
+        ReflectionTestUtils.setField(tempTokenService, "tempTokenFormat", format);
+        ReflectionTestUtils.setField(tempTokenService, "tempTokenExpiryMinutes", 10);
+        ReflectionTestUtils.setField(tempTokenService, "rateLimitCount", 3);
+
+        tempToken = tempTokenService.createTempToken(null, TempTokenPurpose.REGISTRATION_OTP, EMAIL, "483920");
+    }
+
+    @Benchmark
+    public String issue() throws RandomExceptions {
+        return tempTokenService.createTempToken(null, TempTokenPurpose.REGISTRATION_OTP, EMAIL, "483920");
+    }
+
+    @Benchmark
+    public TempTokenEntity resolve() throws VerificationException {
+        return tempTokenService.findActiveTempToken(tempToken);
+    }
+
+    // What resend used to do before the stored token was consulted: verify the signature and read the claims
+    @Benchmark
+    public Claims legacyJwtClaims() {
+        if (!"jwt".equals(format)) {
+            return null;
+        }
+        jwtProvider.validateTempToken(tempToken, "");
+        return jwtProvider.getTempTokenClaims(tempToken);
+    }
+
+    /**
+     * Keeps the last saved token and hands it back for any hash
+     */
+    private static final class StubStore implements TempTokenStore {
+
+        private TempTokenEntity saved;
+
+        @Override
+        public TempTokenEntity save(TempTokenEntity tempToken) {
+            saved = tempToken;
+            return tempToken;
+        }
+
+        @Override
+        public Optional<TempTokenEntity> findByTokenHash(byte[] tokenHash) {
+            return Optional.ofNullable(saved);
+        }
+
+        @Override
+        public void incrementAttempts(byte[] tokenHash) {
+        }
+
+        @Override
+        public boolean markUsed(byte[] tokenHash) {
+            return true;
+        }
+
+        @Override
+        public int markUnusedAsUsedByAccount(AccountEntity account, TempTokenPurpose purpose) {
+            return 0;
+        }
+
+        @Override
+        public int markUnusedAsUsedByUserIdentifier(String userIdentifier, TempTokenPurpose purpose) {
+            return 0;
+        }
+
+        @Override
+        public long countByAccountCreatedAfter(AccountEntity account, TempTokenPurpose purpose, LocalDateTime createdAfter) {
+            return 0;
+        }
+
+        @Override
+        public long countByUserIdentifierCreatedAfter(String userIdentifier, TempTokenPurpose purpose, LocalDateTime createdAfter) {
+            return 0;
+        }
+
+        @Override
+        public Optional<LocalDateTime> findLatestCreatedAt(String userIdentifier, TempTokenPurpose purpose, LocalDateTime createdAfter) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void purgeExpired() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TempTokenFormatBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
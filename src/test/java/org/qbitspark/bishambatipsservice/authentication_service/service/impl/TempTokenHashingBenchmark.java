@@ -0,0 +1,89 @@
+package org.qbitspark.bishambatipsservice.authentication_service.service.impl;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.qbitspark.bishambatipsservice.authentication_service.utils.OtpHashingUtils;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashing a temp token before it is stored or looked up, and of issuing/verifying
+ * an OTP hash (keyed HMAC, with BCrypt as the legacy baseline).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TempTokenHashingBenchmark {
+
+    // Same shape as a real temp token: an HS256 JWT with a handful of claims
+    private static final String TEMP_TOKEN = "eyJhbGciOiJIUzI1NiJ9."
+            + "eyJzdWIiOiJ1c2VyQGV4YW1wbGUuY29tIiwicHVycG9zZSI6IkxPR0lOX09UUCIsInRva2VuVHlwZSI6IlRFTVAiLCJpYXQiOjE3MDAwMDAwMDAsImV4cCI6MTcwMDAwMDYwMH0."
+            + "5mS0bIb4y0y6m6j0R2rEJ8p0o3lY7lA1sC2vYqgkV5U";
+
+    private static final String OTP_CODE = "483920";
+
+    private TempTokenServiceImpl tempTokenService;
+    private OtpHashingUtils otpHashingUtils;
+    private BCryptPasswordEncoder bcrypt;
+    private String hmacOtpHash;
+    private String bcryptOtpHash;
+
+    @Setup
+    public void setUp() {
+        // hashString has no collaborators
+        tempTokenService = new TempTokenServiceImpl(null, null, null, null, null);
+
+        bcrypt = new BCryptPasswordEncoder();
+        otpHashingUtils = new OtpHashingUtils(bcrypt);
+        ReflectionTestUtils.setField(otpHashingUtils, "pepper", "benchmark-pepper");
+        ReflectionTestUtils.invokeMethod(otpHashingUtils, "initPepperKey");
+
+        hmacOtpHash = otpHashingUtils.hashOtp(OTP_CODE);
+        bcryptOtpHash = bcrypt.encode(OTP_CODE);
+    }
+
+    @Benchmark
+    public byte[] hashString() {
+        return tempTokenService.hashString(TEMP_TOKEN);
+    }
+
+    // Previous implementation: a MessageDigest per call, Base64 text for the varchar column
+    @Benchmark
+    public String hashStringPerCallDigestBase64() throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return Base64.getEncoder().encodeToString(digest.digest(TEMP_TOKEN.getBytes()));
+    }
+
+    @Benchmark
+    public String hashOtpHmac() {
+        return otpHashingUtils.hashOtp(OTP_CODE);
+    }
+
+    @Benchmark
+    public boolean matchOtpHmac() {
+        return otpHashingUtils.matches(OTP_CODE, hmacOtpHash);
+    }
+
+    @Benchmark
+    public boolean matchOtpLegacyBcrypt() {
+        return otpHashingUtils.matches(OTP_CODE, bcryptOtpHash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TempTokenHashingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
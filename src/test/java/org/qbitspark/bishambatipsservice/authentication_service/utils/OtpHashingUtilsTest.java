@@ -0,0 +1,68 @@
+package org.qbitspark.bishambatipsservice.authentication_service.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpHashingUtilsTest {
+
+    private BCryptPasswordEncoder bcrypt;
+    private OtpHashingUtils otpHashingUtils;
+
+    @BeforeEach
+    void setUp() {
+        bcrypt = new BCryptPasswordEncoder(4);
+        otpHashingUtils = newUtils("test-pepper");
+    }
+
+    private OtpHashingUtils newUtils(String pepper) {
+        OtpHashingUtils utils = new OtpHashingUtils(bcrypt);
+        ReflectionTestUtils.setField(utils, "pepper", pepper);
+        utils.initPepperKey();
+        return utils;
+    }
+
+    @Test
+    void matchesOnlyTheIssuedCode() {
+        String hash = otpHashingUtils.hashOtp("123456");
+
+        assertTrue(hash.startsWith("hmac$"));
+        assertTrue(otpHashingUtils.matches("123456", hash));
+        assertFalse(otpHashingUtils.matches("123457", hash));
+    }
+
+    @Test
+    void saltsEachHash() {
+        assertNotEquals(otpHashingUtils.hashOtp("123456"), otpHashingUtils.hashOtp("123456"));
+    }
+
+    @Test
+    void rejectsHashMadeWithAnotherPepper() {
+        String hash = newUtils("other-pepper").hashOtp("123456");
+
+        assertFalse(otpHashingUtils.matches("123456", hash));
+    }
+
+    @Test
+    void derivesPepperFromJwtSecretInsteadOfReusingIt() {
+        OtpHashingUtils derived = new OtpHashingUtils(bcrypt);
+        ReflectionTestUtils.setField(derived, "jwtSecret", "jwt-secret");
+        derived.initPepperKey();
+
+        String hash = derived.hashOtp("123456");
+
+        assertTrue(derived.matches("123456", hash));
+        assertFalse(newUtils("jwt-secret").matches("123456", hash));
+    }
+
+    @Test
+    void stillVerifiesLegacyBcryptRows() {
+        String legacyHash = bcrypt.encode("123456");
+
+        assertTrue(otpHashingUtils.matches("123456", legacyHash));
+        assertFalse(otpHashingUtils.matches("654321", legacyHash));
+    }
+}
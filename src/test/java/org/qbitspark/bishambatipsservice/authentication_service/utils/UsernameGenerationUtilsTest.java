@@ -0,0 +1,42 @@
+package org.qbitspark.bishambatipsservice.authentication_service.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UsernameGenerationUtilsTest {
+
+    private AccountRepo accountRepo;
+    private UsernameGenerationUtils usernameGenerationUtils;
+
+    @BeforeEach
+    void setUp() {
+        accountRepo = mock(AccountRepo.class);
+        usernameGenerationUtils = new UsernameGenerationUtils(accountRepo);
+    }
+
+    @Test
+    void generatesWithoutQueryingTheDatabase() {
+        String userName = usernameGenerationUtils.generateUsernameFromEmail("office@qbitspark.com");
+
+        assertTrue(userName.matches("office-[a-zA-Z0-9]{7}"));
+        verifyNoInteractions(accountRepo);
+    }
+
+    @Test
+    void eachCallIsAFreshCandidate() {
+        // A retry after a clash on insert must not get the same name again
+        assertNotEquals(usernameGenerationUtils.generateUsernameFromEmail("office@qbitspark.com"),
+                usernameGenerationUtils.generateUsernameFromEmail("office@qbitspark.com"));
+    }
+
+    @Test
+    void cleansThePrefix() {
+        String userName = usernameGenerationUtils.generateUsernameFromEmail("1st.office+tips@qbitspark.com");
+
+        assertTrue(userName.matches("u1stofficetips-[a-zA-Z0-9]{7}"));
+    }
+}
@@ -0,0 +1,112 @@
+package org.qbitspark.bishambatipsservice.farmer_mng_service.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.Roles;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+import org.qbitspark.bishambatipsservice.farmer_mng_service.entities.FarmerEntity;
+import org.qbitspark.bishambatipsservice.farmer_mng_service.payloads.ConfirmTermsRequest;
+import org.qbitspark.bishambatipsservice.farmer_mng_service.repo.FarmerRepository;
+import org.qbitspark.bishambatipsservice.globesecurity.AuthenticatedAccountProvider;
+import org.qbitspark.bishambatipsservice.sms_service.GlobeSmsService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Each farmer endpoint must resolve the authenticated account with a single query,
+ * however many ownership/admin checks it performs.
+ */
+class FarmerServiceImplTest {
+
+    private static final String USER_NAME = "agent-a1B2c3D";
+
+    private FarmerRepository farmerRepository;
+    private AccountRepo accountRepo;
+    private FarmerServiceImpl farmerService;
+
+    private AccountEntity agent;
+    private FarmerEntity farmer;
+
+    @BeforeEach
+    void setUp() {
+        farmerRepository = mock(FarmerRepository.class);
+        accountRepo = mock(AccountRepo.class);
+
+        // A fresh provider stands in for one request scope
+        farmerService = new FarmerServiceImpl(
+                farmerRepository,
+                new AuthenticatedAccountProvider(accountRepo),
+                mock(GlobeSmsService.class)
+        );
+
+        Roles agentRole = new Roles(UUID.randomUUID(), "ROLE_AGENT");
+        agent = new AccountEntity();
+        agent.setId(UUID.randomUUID());
+        agent.setUserName(USER_NAME);
+        agent.setRoles(Set.of(agentRole));
+
+        farmer = new FarmerEntity();
+        farmer.setId(UUID.randomUUID());
+        farmer.setPhoneNumber("255700000000");
+        farmer.setAgent(agent);
+        farmer.setTermsAgreementCode("123-456");
+        farmer.setTermsCodeExpiresAt(LocalDateTime.now().plusMinutes(30));
+
+        when(accountRepo.findByUserName(USER_NAME)).thenReturn(Optional.of(agent));
+        when(farmerRepository.findById(farmer.getId())).thenReturn(Optional.of(farmer));
+        when(farmerRepository.save(any(FarmerEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new User(USER_NAME, "", List.of()), null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getFarmerByIdLoadsAccountOnce() throws Exception {
+        farmerService.getFarmerById(farmer.getId());
+
+        verify(accountRepo, times(1)).findByUserName(USER_NAME);
+    }
+
+    @Test
+    void confirmTermsAgreementLoadsAccountOnce() throws Exception {
+        ConfirmTermsRequest request = new ConfirmTermsRequest();
+        request.setTermsAgreementCode("123-456");
+
+        farmerService.confirmTermsAgreement(farmer.getId(), request);
+
+        verify(accountRepo, times(1)).findByUserName(USER_NAME);
+    }
+
+    @Test
+    void resendTermsCodeLoadsAccountOnce() throws Exception {
+        farmerService.resendTermsCode(farmer.getId());
+
+        verify(accountRepo, times(1)).findByUserName(USER_NAME);
+    }
+
+    @Test
+    void getMyFarmersLoadsAccountOnce() throws Exception {
+        when(farmerRepository.findByAgent(agent)).thenReturn(List.of(farmer));
+
+        farmerService.getMyFarmers();
+
+        verify(accountRepo, times(1)).findByUserName(USER_NAME);
+    }
+}
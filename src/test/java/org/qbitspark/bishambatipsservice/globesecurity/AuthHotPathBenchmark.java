@@ -0,0 +1,147 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.AccountEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.Roles;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.AccountRepo;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.RolesRepository;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-operation cost of each step on the authentication hot path.
+ * Run with {@code ./mvnw -Pbenchmark -DskipTests verify}; results land in target/jmh-result.json
+ * so they can be compared between releases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthHotPathBenchmark {
+
+    private static final String USER_NAME = "agent-a1B2c3D";
+    private static final String PASSWORD = "Benchmark@123";
+
+    private JWTProvider jwtProvider;
+    private Authentication authentication;
+    private String accessToken;
+
+    private BCryptPasswordEncoder passwordEncoder;
+    private String passwordHash;
+
+    private JWTAuthFilter jwtAuthFilter;
+
+    @Setup
+    public void setUp() {
+        jwtProvider = JWTProviderBenchmark.newProvider();
+        authentication = new UsernamePasswordAuthenticationToken(USER_NAME, null, List.of());
+        accessToken = jwtProvider.generateAccessToken(authentication);
+
+        passwordEncoder = new BCryptPasswordEncoder();
+        passwordHash = passwordEncoder.encode(PASSWORD);
+
+        jwtAuthFilter = newFilter();
+    }
+
+    private JWTAuthFilter newFilter() {
+        AccountEntity account = new AccountEntity();
+        account.setId(UUID.randomUUID());
+        account.setUserName(USER_NAME);
+        account.setPassword(passwordHash);
+        account.setRoles(Set.of(new Roles(UUID.randomUUID(), "ROLE_AGENT")));
+
+        AccountRepo accountRepo = mock(AccountRepo.class);
+        when(accountRepo.findAccountEntitiesByUserName(USER_NAME)).thenReturn(Optional.of(account));
+
+        UserDetailsCache userDetailsCache = new UserDetailsCache(
+                new CustomUserDetailsService(accountRepo, roleRegistry(account)), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userDetailsCache, "enabled", true);
+        ReflectionTestUtils.setField(userDetailsCache, "maxSize", 10_000L);
+        ReflectionTestUtils.setField(userDetailsCache, "ttlSeconds", 120L);
+        userDetailsCache.initCache();
+
+        // Any exception reaching the resolver means the benchmark is measuring a failure path
+        JWTAuthFilter filter = new JWTAuthFilter((request, response, handler, ex) -> {
+            throw new IllegalStateException("Filter rejected benchmark token", ex);
+        });
+        ReflectionTestUtils.setField(filter, "jwtProvider", jwtProvider);
+        ReflectionTestUtils.setField(filter, "userDetailsCache", userDetailsCache);
+        AccountTokenVersionCache tokenVersionCache = new AccountTokenVersionCache(accountRepo);
+        ReflectionTestUtils.setField(tokenVersionCache, "maxSize", 10_000L);
+        ReflectionTestUtils.setField(tokenVersionCache, "ttlSeconds", 30L);
+        tokenVersionCache.initCache();
+        ReflectionTestUtils.setField(filter, "tokenVersionCache", tokenVersionCache);
+        return filter;
+    }
+
+    private RoleRegistry roleRegistry(AccountEntity account) {
+        RolesRepository rolesRepository = mock(RolesRepository.class);
+        when(rolesRepository.findAll()).thenReturn(List.copyOf(account.getRoles()));
+        RoleRegistry roleRegistry = new RoleRegistry(rolesRepository);
+        roleRegistry.refresh();
+        return roleRegistry;
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtProvider.generateAccessToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validToken() throws Exception {
+        return jwtProvider.validToken(accessToken, "ACCESS");
+    }
+
+    @Benchmark
+    public String getUserName() {
+        return jwtProvider.getUserName(accessToken);
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return passwordEncoder.matches(PASSWORD, passwordHash);
+    }
+
+    @Benchmark
+    public Object filterPass() throws Exception {
+        // OncePerRequestFilter marks the request as filtered, so each pass needs a fresh one
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/farmers");
+        request.addHeader("Authorization", "Bearer " + accessToken);
+
+        try {
+            jwtAuthFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            });
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuthHotPathBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,108 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signed/verified tokens per second for JWTProvider.
+ * The "perCall" benchmarks reproduce the old behaviour (decode the secret and build a parser on every call)
+ * so the cached key and parser can be compared against it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTProviderBenchmark {
+
+    static final String SECRET = "c2VjcmV0LWtleS1mb3ItYmVuY2htYXJraW5nLW9ubHktbm90LWZvci1wcm9kdWN0aW9uLXVzZQ==";
+
+    private JWTProvider jwtProvider;
+    private Authentication authentication;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        jwtProvider = newProvider();
+        authentication = new UsernamePasswordAuthenticationToken("agent-a1B2c3D", null, List.of());
+        accessToken = jwtProvider.generateAccessToken(authentication);
+    }
+
+    public static JWTProvider newProvider() {
+        JwtKeyRing keyRing = new JwtKeyRing(null, null);
+        ReflectionTestUtils.setField(keyRing, "signatureAlgorithm", SignatureAlgorithm.HS256);
+        JWTProvider provider = new JWTProvider(keyRing);
+        ReflectionTestUtils.setField(provider, "secret_key", SECRET);
+        ReflectionTestUtils.setField(provider, "accessTokenExpirationMillis", 3_600_000L);
+        ReflectionTestUtils.setField(provider, "refreshTokenExpirationDays", 30L);
+        ReflectionTestUtils.setField(provider, "tempTokenExpirationMs", 600_000);
+        provider.initSigningKey();
+        return provider;
+    }
+
+    @Benchmark
+    public String signCached() {
+        return jwtProvider.generateAccessToken(authentication);
+    }
+
+    @Benchmark
+    public String signPerCall() {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(authentication.getName())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + 3_600_000L))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .claim("tokenType", "ACCESS")
+                .compact();
+    }
+
+    @Benchmark
+    public String verifyCached() throws Exception {
+        jwtProvider.validToken(accessToken, "ACCESS");
+        return jwtProvider.getUserName(accessToken);
+    }
+
+    @Benchmark
+    public String verifySingleParse() throws Exception {
+        return jwtProvider.verifyToken(accessToken, "ACCESS").getSubject();
+    }
+
+    @Benchmark
+    public String verifyPerCall() {
+        // validToken + getUserName, each with a freshly decoded key and parser
+        parsePerCall(accessToken);
+        return parsePerCall(accessToken).getSubject();
+    }
+
+    private static Claims parsePerCall(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JWTProviderBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,160 @@
+package org.qbitspark.bishambatipsservice.globesecurity;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.qbitspark.bishambatipsservice.authentication_service.entity.JwtSigningKeyEntity;
+import org.qbitspark.bishambatipsservice.authentication_service.repo.JwtSigningKeyRepository;
+import org.qbitspark.bishambatipsservice.globeadvice.exceptions.TokenInvalidSignatureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two rings over the same key table stand in for two gateway nodes (or one node before and after a redeploy).
+ */
+class JwtKeyRingTest {
+
+    private final List<JwtSigningKeyEntity> table = new ArrayList<>();
+    private JwtSigningKeyRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(JwtSigningKeyRepository.class);
+        when(repository.tryAdvisoryXactLock(anyLong())).thenReturn(true);
+        when(repository.findByAlgorithmOrderByActivatesAtDesc(anyString())).thenAnswer(invocation -> table.stream()
+                .sorted(Comparator.comparing(JwtSigningKeyEntity::getActivatesAt).reversed())
+                .toList());
+        when(repository.save(any(JwtSigningKeyEntity.class))).thenAnswer(invocation -> {
+            table.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        doAnswer(invocation -> table.remove(invocation.<JwtSigningKeyEntity>getArgument(0)))
+                .when(repository).delete(any(JwtSigningKeyEntity.class));
+    }
+
+    private JwtKeyRing newRing() {
+        JwtKeyRing ring = new JwtKeyRing(repository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(ring, "signatureAlgorithm", SignatureAlgorithm.ES256);
+        ReflectionTestUtils.setField(ring, "keyEncryptionSecret", JWTProviderBenchmark.SECRET);
+        ReflectionTestUtils.setField(ring, "rotationIntervalMillis", 86_400_000L);
+        ReflectionTestUtils.setField(ring, "refreshIntervalMillis", 60_000L);
+        ReflectionTestUtils.setField(ring, "accessTokenExpirationMillis", 3_600_000L);
+        ReflectionTestUtils.setField(ring, "tempTokenExpirationMillis", 600_000L);
+        ReflectionTestUtils.invokeMethod(ring, "initKeys");
+        return ring;
+    }
+
+    private JWTProvider newProvider(JwtKeyRing ring) {
+        return newProvider(ring, true);
+    }
+
+    private JWTProvider newProvider(JwtKeyRing ring, boolean acceptLegacyHmac) {
+        JWTProvider provider = new JWTProvider(ring);
+        ReflectionTestUtils.setField(provider, "acceptLegacyHmac", acceptLegacyHmac);
+        ReflectionTestUtils.setField(provider, "secret_key", JWTProviderBenchmark.SECRET);
+        ReflectionTestUtils.setField(provider, "accessTokenExpirationMillis", 3_600_000L);
+        ReflectionTestUtils.setField(provider, "refreshTokenExpirationDays", 30L);
+        ReflectionTestUtils.setField(provider, "tempTokenExpirationMs", 600_000);
+        provider.initSigningKey();
+        return provider;
+    }
+
+    @Test
+    void tokenSignedOnOneNodeVerifiesOnAnother() throws Exception {
+        JwtKeyRing nodeA = newRing();
+        JwtKeyRing nodeB = newRing();
+
+        assertEquals(1, table.size());
+        assertEquals(nodeA.currentKey().kid(), nodeB.currentKey().kid());
+
+        String token = newProvider(nodeA).generateAccessToken(
+                new UsernamePasswordAuthenticationToken("agent-a1B2c3D", null, List.of()));
+
+        assertEquals("agent-a1B2c3D", newProvider(nodeB).verifyToken(token, "ACCESS").getSubject());
+    }
+
+    @Test
+    void legacyHmacTokensAreRejectedOnceTheWindowIsClosed() throws Exception {
+        String legacyToken = JWTProviderBenchmark.newProvider().generateAccessToken(
+                new UsernamePasswordAuthenticationToken("agent-a1B2c3D", null, List.of()));
+        JwtKeyRing ring = newRing();
+
+        assertEquals("agent-a1B2c3D", newProvider(ring, true).verifyToken(legacyToken, "ACCESS").getSubject());
+        assertThrows(TokenInvalidSignatureException.class, () -> newProvider(ring, false).verifyToken(legacyToken, "ACCESS"));
+    }
+
+    @Test
+    void privateKeysAreEncryptedAtRest() {
+        JwtKeyRing ring = newRing();
+
+        assertFalse(Arrays.equals(ring.currentKey().privateKey().getEncoded(), table.get(0).getPrivateKey()));
+    }
+
+    @Test
+    void publishesNextKeyBeforeSigningWithIt() {
+        JwtKeyRing ring = newRing();
+        String firstKid = ring.currentKey().kid();
+        table.get(0).setCreatedAt(LocalDateTime.now().minusDays(2));
+
+        ring.sync();
+
+        assertEquals(2, table.size());
+        assertEquals(firstKid, ring.currentKey().kid());
+        assertEquals(2, ((List<?>) ring.jwks().get("keys")).size());
+    }
+
+    @Test
+    void keepsRetiredKeysForTheAccessTokenLifetime() {
+        JwtKeyRing ring = newRing();
+        JwtSigningKeyEntity first = table.get(0);
+        first.setCreatedAt(LocalDateTime.now().minusDays(2));
+        first.setActivatesAt(LocalDateTime.now().minusDays(2));
+
+        // Successor active for 30 minutes: access tokens signed by the first key may still be valid
+        JwtSigningKeyEntity second = keyActivatedAt(ring, LocalDateTime.now().minusMinutes(30));
+        ring.sync();
+        assertTrue(ring.publicKey(first.getKid()).isPresent());
+
+        // Successor active for 2 hours: every 1-hour access token signed by the first key has expired
+        second.setActivatesAt(LocalDateTime.now().minusHours(2));
+        ring.sync();
+        assertTrue(ring.publicKey(first.getKid()).isEmpty());
+        assertTrue(ring.publicKey(second.getKid()).isPresent());
+    }
+
+    @Test
+    void refreshTokensOutliveTheRingKeyThatWasCurrent() throws Exception {
+        JwtKeyRing ring = newRing();
+        JWTProvider provider = newProvider(ring);
+        String refreshToken = provider.generateRefreshToken(
+                new UsernamePasswordAuthenticationToken("agent-a1B2c3D", null, List.of()), "jti-1", UUID.randomUUID());
+
+        // Every ring key is rotated out; the refresh token does not depend on them
+        table.clear();
+        keyActivatedAt(ring, LocalDateTime.now().minusMinutes(1));
+        ring.sync();
+
+        assertEquals("jti-1", provider.verifyToken(refreshToken, "REFRESH").getTokenId());
+        assertThrows(TokenInvalidSignatureException.class, () -> provider.verifyToken(refreshToken, "ACCESS"));
+    }
+
+    private JwtSigningKeyEntity keyActivatedAt(JwtKeyRing ring, LocalDateTime activatesAt) {
+        JwtSigningKeyEntity key = ReflectionTestUtils.invokeMethod(ring, "newKey", activatesAt, activatesAt);
+        table.add(key);
+        return key;
+    }
+}
@@ -0,0 +1,68 @@
+package org.qbitspark.bishambatipsservice.globesecurity.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowRateLimiterTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    private final AtomicLong now = new AtomicLong();
+    private SlidingWindowRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        now.set(WINDOW.toMillis() * 1000);
+        rateLimiter = new SlidingWindowRateLimiter(now::get);
+    }
+
+    @Test
+    void rejectsOnceLimitIsReached() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.tryAcquire("login:id:user", 3, WINDOW));
+        }
+
+        assertFalse(rateLimiter.tryAcquire("login:id:user", 3, WINDOW));
+        assertTrue(rateLimiter.tryAcquire("login:id:other", 3, WINDOW));
+    }
+
+    @Test
+    void previousWindowDecaysAcrossTheBoundary() {
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.tryAcquire("key", 4, WINDOW);
+        }
+
+        // Half-way into the next window half of the previous hits still count: 4 * 0.5 = 2
+        now.addAndGet(WINDOW.toMillis() + WINDOW.toMillis() / 2);
+        assertTrue(rateLimiter.tryAcquire("key", 4, WINDOW));
+        assertTrue(rateLimiter.tryAcquire("key", 4, WINDOW));
+        assertFalse(rateLimiter.tryAcquire("key", 4, WINDOW));
+    }
+
+    @Test
+    void rejectedHitsKeepTheKeyLimited() {
+        for (int i = 0; i < 6; i++) {
+            rateLimiter.tryAcquire("key", 2, WINDOW);
+        }
+
+        // 6 hits recorded, 4 of them rejected: half-way on, 6 * 0.5 = 3 still exceeds the limit
+        now.addAndGet(WINDOW.toMillis() + WINDOW.toMillis() / 2);
+        assertFalse(rateLimiter.tryAcquire("key", 2, WINDOW));
+    }
+
+    @Test
+    void evictsIdleKeys() {
+        rateLimiter.tryAcquire("key", 1, WINDOW);
+
+        now.addAndGet(WINDOW.toMillis() * 2);
+        rateLimiter.evictIdleKeys();
+
+        assertEquals(0, rateLimiter.trackedKeys());
+        assertTrue(rateLimiter.tryAcquire("key", 1, WINDOW));
+    }
+}
@@ -0,0 +1,78 @@
+-- Lookup latency and index size for temp token hashes at 10M rows:
+--   text_btree  - Base64 text hash with a B-tree index (previous layout)
+--   bytea_btree - raw 32-byte hash with a B-tree index (default)
+--   bytea_hash  - raw 32-byte hash with a hash index (option)
+--
+-- Run against a scratch database: psql -f temp_token_hash_lookup_benchmark.sql
+-- Needs pgcrypto for digest(); everything is created in a throwaway schema and dropped at the end.
+
+\timing on
+
+CREATE EXTENSION IF NOT EXISTS pgcrypto;
+DROP SCHEMA IF EXISTS token_hash_bench CASCADE;
+CREATE SCHEMA token_hash_bench;
+SET search_path = token_hash_bench, public;
+
+CREATE TABLE text_btree (id bigint PRIMARY KEY, token_hash varchar(255) NOT NULL);
+CREATE TABLE bytea_btree (id bigint PRIMARY KEY, token_hash bytea NOT NULL);
+CREATE TABLE bytea_hash (id bigint PRIMARY KEY, token_hash bytea NOT NULL);
+
+INSERT INTO bytea_btree
+SELECT i, digest('temp-token-' || i, 'sha256')
+FROM generate_series(1, 10000000) AS i;
+
+INSERT INTO text_btree SELECT id, encode(token_hash, 'base64') FROM bytea_btree;
+INSERT INTO bytea_hash SELECT id, token_hash FROM bytea_btree;
+
+CREATE INDEX text_btree_idx ON text_btree (token_hash);
+CREATE INDEX bytea_btree_idx ON bytea_btree (token_hash);
+CREATE INDEX bytea_hash_idx ON bytea_hash USING hash (token_hash);
+
+VACUUM ANALYZE text_btree;
+VACUUM ANALYZE bytea_btree;
+VACUUM ANALYZE bytea_hash;
+
+-- Table and index sizes
+SELECT c.relname,
+       pg_size_pretty(pg_relation_size(c.oid)) AS size,
+       pg_relation_size(c.oid)                 AS bytes
+FROM pg_class c
+         JOIN pg_namespace n ON n.oid = c.relnamespace
+WHERE n.nspname = 'token_hash_bench'
+  AND c.relkind IN ('r', 'i')
+ORDER BY c.relname;
+
+-- Single-row lookups, as done on every OTP verify/resend
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM text_btree WHERE token_hash = encode(digest('temp-token-7654321', 'sha256'), 'base64');
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM bytea_btree WHERE token_hash = digest('temp-token-7654321', 'sha256');
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM bytea_hash WHERE token_hash = digest('temp-token-7654321', 'sha256');
+
+-- Average over 100k random lookups per layout (keys precomputed so only the probe is timed)
+CREATE TEMP TABLE probes AS
+SELECT digest('temp-token-' || (1 + floor(random() * 10000000))::bigint, 'sha256') AS token_hash
+FROM generate_series(1, 100000);
+CREATE TEMP TABLE text_probes AS SELECT encode(token_hash, 'base64') AS token_hash FROM probes;
+
+SET enable_seqscan = off;
+SET enable_hashjoin = off;
+SET enable_mergejoin = off;
+
+EXPLAIN (ANALYZE, SUMMARY)
+SELECT count(t.id) FROM text_probes p JOIN text_btree t ON t.token_hash = p.token_hash;
+
+EXPLAIN (ANALYZE, SUMMARY)
+SELECT count(t.id) FROM probes p JOIN bytea_btree t ON t.token_hash = p.token_hash;
+
+EXPLAIN (ANALYZE, SUMMARY)
+SELECT count(t.id) FROM probes p JOIN bytea_hash t ON t.token_hash = p.token_hash;
+
+RESET enable_seqscan;
+RESET enable_hashjoin;
+RESET enable_mergejoin;
+
+DROP SCHEMA token_hash_bench CASCADE;